@@ -1,6 +1,6 @@
 package apps;
 
-import java.io.File;
+import java.io.FileReader;
 import java.io.IOException;
 import java.util.Scanner;
 import java.util.StringTokenizer;
@@ -37,7 +37,7 @@ public class DOM {
 		// TODO Auto-generated method stub
 		System.out.print("Enter HTML file name => ");
 		String htmlFile = stdin.nextLine();
-		Tree tree = new Tree(new Scanner(new File(htmlFile)));
+		Tree tree = new Tree(new FileReader(htmlFile));
 		tree.build();
 		
 		char option;
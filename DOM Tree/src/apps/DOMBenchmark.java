@@ -0,0 +1,153 @@
+package apps;
+
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.Tree;
+
+/**
+ * Times addTags on a large document, on this thread and on fork-join pools of
+ * 1 up to all available processors. Every run starts from a freshly built
+ * tree, is preceded by untimed warmup runs, and has its output checked against
+ * the sequential one, so a wrong parallel result cannot post a fast time.
+ *
+ * Usage:
+ * <pre>
+ *   DOMBenchmark [megabytes [words]]   generated document of about that size
+ *   DOMBenchmark file [words]           HTML file
+ * </pre>
+ */
+public class DOMBenchmark {
+
+	/**
+	 * Untimed runs before each measurement
+	 */
+	static final int WARMUP = 2;
+
+	/**
+	 * Timed runs per measurement
+	 */
+	static final int ITERATIONS = 5;
+
+	public static void main(String[] args)
+	throws IOException {
+		String html;
+		if (args.length > 0 && !args[0].matches("\\d+")) {
+			html = read(args[0]);
+		} else {
+			html = generate(args.length > 0 ? Integer.parseInt(args[0]) : 16, 42);
+		}
+		int count = args.length > 1 ? Integer.parseInt(args[1]) : 200;
+		Map<String,String> words = new HashMap<String,String>();
+		for (int i=0; i < count; i++) {
+			words.put(word(i), i % 2 == 0 ? "em" : "b");
+		}
+		System.out.println("Document: " + html.length() / 1000 + "K chars, " + count + " words, "
+				+ Runtime.getRuntime().availableProcessors() + " processors");
+
+		String expected = run(html, words, null);
+		double sequential = time(html, words, null, expected);
+		System.out.printf("%-16s %8.1f ms%n", "sequential", sequential);
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads=1; threads <= Math.max(cores, 2); threads*=2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			double ms = time(html, words, pool, expected);
+			pool.shutdown();
+			System.out.printf("%-16s %8.1f ms  speedup %.2f%n", "pool of " + threads, ms, sequential / ms);
+		}
+	}
+
+	/**
+	 * Returns the mean time of addTags, in milliseconds, over ITERATIONS runs.
+	 */
+	static double time(String html, Map<String,String> words, ForkJoinPool pool, String expected) {
+		for (int i=0; i < WARMUP; i++) {
+			check(run(html, words, pool), expected);
+		}
+		long total = 0;
+		for (int i=0; i < ITERATIONS; i++) {
+			Tree tree = build(html);
+			long start = System.nanoTime();
+			tree.addTags(words, pool);
+			total += System.nanoTime() - start;
+			check(tree.getHTML(), expected);
+		}
+		return total / 1e6 / ITERATIONS;
+	}
+
+	static String run(String html, Map<String,String> words, ForkJoinPool pool) {
+		Tree tree = build(html);
+		tree.addTags(words, pool);
+		return tree.getHTML();
+	}
+
+	static Tree build(String html) {
+		Tree tree = new Tree(new StringReader(html));
+		tree.build();
+		return tree;
+	}
+
+	static void check(String html, String expected) {
+		if (!html.equals(expected)) {
+			throw new IllegalStateException("parallel addTags gave a different document");
+		}
+	}
+
+	static String word(int i) {
+		return "term" + i;
+	}
+
+	/**
+	 * Generates a document of sections, each with paragraphs, lists and a table,
+	 * whose text mixes plain words with the benchmark's words.
+	 */
+	static String generate(int megabytes, long seed) {
+		Random random = new Random(seed);
+		StringBuilder sb = new StringBuilder("<html>\n<body>\n");
+		while (sb.length() < megabytes * 1000000) {
+			sb.append("<div>\n");
+			for (int p=0; p < 20; p++) {
+				sb.append("<p>\n");
+				for (int line=0; line < 3; line++) {
+					for (int w=0; w < 12; w++) {
+						sb.append(random.nextInt(8) == 0 ? word(random.nextInt(1000)) : "text");
+						sb.append(w == 11 ? ".\n" : " ");
+					}
+				}
+				sb.append("</p>\n");
+			}
+			sb.append("<ul>\n");
+			for (int i=0; i < 5; i++) {
+				sb.append("<li>\nitem ").append(word(random.nextInt(1000))).append("\n</li>\n");
+			}
+			sb.append("</ul>\n<table>\n");
+			for (int row=0; row < 4; row++) {
+				sb.append("<tr>\n<td>\n").append(word(random.nextInt(1000))).append("\n</td>\n<td>\n")
+						.append(random.nextInt()).append("\n</td>\n</tr>\n");
+			}
+			sb.append("</table>\n</div>\n");
+		}
+		sb.append("</body>\n</html>\n");
+		return sb.toString();
+	}
+
+	static String read(String file)
+	throws IOException {
+		StringBuilder sb = new StringBuilder();
+		FileReader in = new FileReader(file);
+		try {
+			char[] buf = new char[1 << 16];
+			for (int n; (n = in.read(buf)) > 0; ) {
+				sb.append(buf, 0, n);
+			}
+		} finally {
+			in.close();
+		}
+		return sb.toString();
+	}
+}
@@ -0,0 +1,281 @@
+package structures;
+
+import java.io.IOException;
+import java.io.Reader;
+
+import static structures.NodeArena.NIL;
+
+/**
+ * An HTML DOM tree held in a {@link NodeArena}, with tags and text in a
+ * {@link StringPool}. Nodes are int handles into the arena. It is a compact
+ * form for reading and writing a tree: the editing operations are those of
+ * {@link Tree}, which an arena tree converts to and from.
+ * 
+ * Tags are interned in the pool, text is not, which tells elements without
+ * children from text. A tag is pooled with its attributes, after a space, as
+ * the tokenizer gives it. Building, traversal and serialization make no object
+ * per node, and traversals follow the parent links instead of keeping a
+ * stack. A node costs 16 bytes plus its pooled text; as the text is most of
+ * a document, a whole tree takes about half the memory of a Tree.
+ */
+public class ArenaTree {
+
+	NodeArena nodes;
+
+	StringPool pool;
+
+	/**
+	 * First top level node
+	 */
+	int root = NIL;
+
+	/**
+	 * Initializes an empty tree.
+	 */
+	public ArenaTree() {
+		nodes = new NodeArena(1024);
+		pool = new StringPool();
+	}
+
+	/**
+	 * Builds a tree from HTML, in the same way as {@link Tree#build()}.
+	 * 
+	 * @param in Reader for input HTML
+	 * @return Tree
+	 * @throws IOException If the input cannot be read
+	 */
+	public static ArenaTree build(Reader in)
+	throws IOException {
+		ArenaTree tree = new ArenaTree();
+		NodeArena a = tree.nodes;
+		HtmlTokenizer tok = new HtmlTokenizer(in);
+		int[] open = new int[16], last = new int[16];
+		int depth = 0, lastRoot = NIL;
+		for (int type; (type = tok.next()) != HtmlTokenizer.END; ) {
+			if (type == HtmlTokenizer.CLOSE) {
+				for (int d=depth-1; d >= 0; d--) {
+					if (tok.names(tree.pool, a.tag[open[d]])) {
+						depth = d;
+						break;
+					}
+				}
+				continue;
+			}
+			int node = a.add(type == HtmlTokenizer.TEXT ? tok.add(tree.pool) : tok.intern(tree.pool));
+			if (depth == 0) {
+				if (lastRoot == NIL) {
+					tree.root = node;
+				} else {
+					a.sibling[lastRoot] = node;
+				}
+				lastRoot = node;
+			} else {
+				a.parent[node] = open[depth-1];
+				if (last[depth-1] == NIL) {
+					a.firstChild[open[depth-1]] = node;
+				} else {
+					a.sibling[last[depth-1]] = node;
+				}
+				last[depth-1] = node;
+			}
+			if (type == HtmlTokenizer.OPEN) {
+				if (depth == open.length) {
+					open = java.util.Arrays.copyOf(open, depth*2);
+					last = java.util.Arrays.copyOf(last, depth*2);
+				}
+				open[depth] = node;
+				last[depth++] = NIL;
+			}
+		}
+		a.trim();
+		tree.pool.trim();
+		return tree;
+	}
+
+	/**
+	 * Copies a TagNode tree into an arena tree.
+	 * 
+	 * @param tree Tree to copy
+	 * @return Arena tree
+	 */
+	public static ArenaTree fromTree(Tree tree) {
+		final ArenaTree arena = new ArenaTree();
+		if (tree.root == null) {
+			return arena;
+		}
+		final NodeArena a = arena.nodes;
+		new TreeWalker().walk(new TagNode(null, tree.root, null), new TagVisitor() {
+			// open[d] is the node entered at depth d, last[d] its last child so far
+			int[] open = new int[16], last = new int[16];
+			int lastRoot = NIL;
+
+			public boolean enter(TreeWalker walker, TagNode tagNode) {
+				int d = walker.depth();
+				if (d + 1 >= open.length) {
+					open = java.util.Arrays.copyOf(open, open.length * 2);
+					last = java.util.Arrays.copyOf(last, last.length * 2);
+				}
+				int node = a.add(!tagNode.element ? arena.pool.add(tagNode.tag)
+						: arena.pool.intern(tagNode.attributes == null ? tagNode.tag : tagNode.tag + " " + tagNode.attributes));
+				if (d == 1) {
+					if (lastRoot == NIL) {
+						arena.root = node;
+					} else {
+						a.sibling[lastRoot] = node;
+					}
+					lastRoot = node;
+				} else {
+					a.parent[node] = open[d-1];
+					if (last[d-1] == NIL) {
+						a.firstChild[open[d-1]] = node;
+					} else {
+						a.sibling[last[d-1]] = node;
+					}
+					last[d-1] = node;
+				}
+				open[d] = node;
+				last[d] = NIL;
+				return true;
+			}
+		});
+		return arena;
+	}
+
+	/**
+	 * Copies this tree into a TagNode tree.
+	 * 
+	 * @return Tree, with the same getHTML as this one
+	 */
+	public Tree toTree() {
+		NodeArena a = nodes;
+		TagNode[] made = new TagNode[a.size()];
+		for (int n=0; n < made.length; n++) {
+			String tag = pool.get(a.tag[n]);
+			made[n] = new TagNode(tag, null, null);
+			made[n].element = pool.isInterned(a.tag[n]);
+			int space = made[n].element ? tag.indexOf(' ') : -1;
+			if (space >= 0) {
+				made[n].tag = tag.substring(0, space);
+				made[n].attributes = tag.substring(space + 1);
+			}
+		}
+		for (int n=0; n < made.length; n++) {
+			made[n].firstChild = a.firstChild[n] == NIL ? null : made[a.firstChild[n]];
+			made[n].sibling = a.sibling[n] == NIL ? null : made[a.sibling[n]];
+		}
+		Tree tree = new Tree((Reader)null);
+		tree.root = root == NIL ? null : made[root];
+		return tree;
+	}
+
+	/**
+	 * Returns the first top level node.
+	 * 
+	 * @return Root node, or NIL if the tree is empty
+	 */
+	public int root() {
+		return root;
+	}
+
+	/**
+	 * Returns the node arena, for access to the links of nodes.
+	 * 
+	 * @return Node arena
+	 */
+	public NodeArena nodes() {
+		return nodes;
+	}
+
+	/**
+	 * Returns the tag, with any attributes, or the text of a node.
+	 * 
+	 * @param n Node
+	 * @return Tag or text
+	 */
+	public String tag(int n) {
+		return pool.get(nodes.tag[n]);
+	}
+
+	/**
+	 * Returns the node after a node in document order, not counting closing tags.
+	 * 
+	 * @param n Node
+	 * @return Next node, or NIL at the end of the tree
+	 */
+	public int next(int n) {
+		NodeArena a = nodes;
+		if (a.firstChild[n] != NIL) {
+			return a.firstChild[n];
+		}
+		for (; n != NIL; n=a.parent[n]) {
+			if (a.sibling[n] != NIL) {
+				return a.sibling[n];
+			}
+		}
+		return NIL;
+	}
+
+	/**
+	 * Returns the number of nodes in the tree.
+	 * 
+	 * @return Number of nodes
+	 */
+	public int nodeCount() {
+		return nodes.size();
+	}
+
+	/**
+	 * Gets the HTML represented by this tree, as {@link Tree#getHTML()}.
+	 * 
+	 * @return HTML string, including new lines.
+	 */
+	public String getHTML() {
+		StringBuilder sb = new StringBuilder();
+		appendHTML(sb);
+		return sb.toString();
+	}
+
+	/**
+	 * Appends the HTML represented by this tree to a string builder.
+	 * 
+	 * @param sb String builder
+	 */
+	public void appendHTML(StringBuilder sb) {
+		NodeArena a = nodes;
+		int n = root;
+		while (n != NIL) {
+			if (a.firstChild[n] != NIL) {
+				sb.append('<');
+				pool.appendTo(a.tag[n], sb);
+				sb.append(">\n");
+				n = a.firstChild[n];
+				continue;
+			}
+			if (pool.isInterned(a.tag[n])) {
+				// an element without children
+				sb.append('<');
+				pool.appendTo(a.tag[n], sb);
+				sb.append(">\n");
+				if (!HtmlTokenizer.isVoid(pool.get(a.tag[n]))) {
+					sb.append("</");
+					pool.appendNameTo(a.tag[n], sb);
+					sb.append(">\n");
+				}
+			} else {
+				pool.appendTo(a.tag[n], sb);
+				sb.append('\n');
+			}
+			while (n != NIL && a.sibling[n] == NIL) {
+				n = a.parent[n];
+				if (n != NIL) {
+					sb.append("</");
+					pool.appendNameTo(a.tag[n], sb);
+					sb.append(">\n");
+				}
+			}
+			if (n != NIL) {
+				n = a.sibling[n];
+			}
+		}
+	}
+}
@@ -0,0 +1,423 @@
+package structures;
+
+import java.io.IOException;
+import java.io.Reader;
+
+/**
+ * Splits HTML into tag and text tokens in a single pass over a character
+ * buffer, with no assumptions about line layout: a line may hold several tags,
+ * and a tag may span lines.
+ *
+ * Text between tags is split at line breaks, and runs that are all white space
+ * are dropped, so an input with one tag or text run per line gives exactly one
+ * token per line. Comments, and declarations such as &lt;!DOCTYPE&gt;, are
+ * skipped. Tags that never have children - void elements such as br, and
+ * self-closing tags such as &lt;x/&gt; - are returned as EMPTY tokens. The
+ * name of a tag is told apart from its attributes, which are kept as written
+ * except that the white space after the name becomes a single space.
+ */
+public class HtmlTokenizer {
+
+	/**
+	 * Token types returned by next()
+	 */
+	public static final int END=0, OPEN=1, CLOSE=2, EMPTY=3, TEXT=4;
+
+	/**
+	 * Elements that never have content, so are not closed
+	 */
+	private static final String[] VOID_ELEMENTS = {
+		"area", "base", "br", "col", "embed", "hr", "img", "input",
+		"link", "meta", "param", "source", "track", "wbr"
+	};
+
+	private Reader in;
+
+	private char[] buf = new char[1 << 16];
+	private int pos, limit;
+
+	/**
+	 * Characters of the current token
+	 */
+	private char[] tok = new char[256];
+	private int len;
+
+	/**
+	 * Length of the name at the start of the current tag token; the attributes,
+	 * if any, follow after a space
+	 */
+	private int nameLen;
+
+	/**
+	 * Open-addressing table of tag strings seen so far, so that repeated tags
+	 * share one String
+	 */
+	private String[] tags = new String[512];
+	private int tagCount;
+
+	/**
+	 * Initializes the tokenizer to read from a reader.
+	 *
+	 * @param in Reader for the HTML input
+	 */
+	public HtmlTokenizer(Reader in) {
+		this.in = in;
+	}
+
+	/**
+	 * Advances to the next token.
+	 *
+	 * @return Token type: OPEN, CLOSE, EMPTY, TEXT, or END at the end of input
+	 * @throws IOException If the input cannot be read
+	 */
+	public int next()
+	throws IOException {
+		while (true) {
+			int c = read();
+			if (c < 0) {
+				return END;
+			}
+			if (c == '<') {
+				int type = readTag();
+				if (type != END) {
+					return type;
+				}
+			} else if (c != '\n') {
+				if (readText(c)) {
+					return TEXT;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Returns the current token. For a tag this is everything between the
+	 * brackets, without the '/' of a closing or self-closing tag, and with a
+	 * single space between the name and the attributes; for text it is the
+	 * text itself.
+	 *
+	 * @return Token string
+	 */
+	public String value() {
+		return new String(tok, 0, len);
+	}
+
+	/**
+	 * Returns the name of the current tag token as a shared string, so that the
+	 * many nodes with the same tag do not each hold a copy.
+	 *
+	 * @return Tag name
+	 */
+	public String tag() {
+		int h = 0;
+		for (int i=0; i < nameLen; i++) {
+			h = 31*h + tok[i];
+		}
+		int mask = tags.length - 1;
+		for (int s=(h ^ (h >>> 16)) & mask; ; s=(s + 1) & mask) {
+			String t = tags[s];
+			if (t == null) {
+				t = new String(tok, 0, nameLen);
+				// stop sharing once the table is half full, rather than grow it
+				if (tagCount < tags.length / 2) {
+					tags[s] = t;
+					tagCount++;
+				}
+				return t;
+			}
+			if (matches(t)) {
+				return t;
+			}
+		}
+	}
+
+	/**
+	 * Returns the attributes of the current tag token.
+	 *
+	 * @return Attributes as written, or null if the tag has none
+	 */
+	public String attributes() {
+		return nameLen < len ? new String(tok, nameLen + 1, len - nameLen - 1) : null;
+	}
+
+	/**
+	 * Tells if the current token is the name of a tag, that is, the part of the
+	 * tag up to the first white space.
+	 *
+	 * @param tag Tag, possibly with attributes
+	 * @return True if the token names the tag
+	 */
+	public boolean names(String tag) {
+		if (tag.length() < len || (tag.length() > len && tag.charAt(len) > ' ')) {
+			return false;
+		}
+		for (int i=0; i < len; i++) {
+			if (tag.charAt(i) != tok[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Returns the pool id of the current token, without making a String.
+	 *
+	 * @param pool String pool
+	 * @return Id of the token in the pool
+	 */
+	int intern(StringPool pool) {
+		return pool.intern(tok, 0, len);
+	}
+
+	/**
+	 * Adds the current token to a pool under a new id, without a lookup.
+	 *
+	 * @param pool String pool
+	 * @return Id of the token in the pool
+	 */
+	int add(StringPool pool) {
+		return pool.add(tok, 0, len);
+	}
+
+	/**
+	 * Tells if the current token is the name of a pooled tag, as {@link #names(String)} does.
+	 *
+	 * @param pool String pool
+	 * @param id Pool id of a tag, possibly with attributes
+	 * @return True if the token names the tag
+	 */
+	boolean names(StringPool pool, int id) {
+		int length = pool.length[id], start = pool.start[id];
+		if (length < len || (length > len && pool.chars[start+len] > ' ')) {
+			return false;
+		}
+		for (int i=0; i < len; i++) {
+			if (pool.chars[start+i] != tok[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean matches(String s) {
+		if (s.length() != nameLen) {
+			return false;
+		}
+		for (int i=0; i < nameLen; i++) {
+			if (s.charAt(i) != tok[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Reads a tag, the '<' having been read.
+	 *
+	 * @return Token type, or END for a comment or declaration that is skipped
+	 */
+	private int readTag()
+	throws IOException {
+		len = 0;
+		while (true) {
+			int start = pos;
+			while (pos < limit && buf[pos] != '>') {
+				pos++;
+			}
+			append(start, pos);
+			if (len >= 3 && tok[0] == '!' && tok[1] == '-' && tok[2] == '-') {
+				pos = start + Math.max(0, 3 - (len - (pos - start)));
+				skipComment();
+				return END;
+			}
+			if (pos < limit) {
+				pos++;
+				break;
+			}
+			if (!fill()) {
+				break;
+			}
+		}
+		while (len > 0 && tok[len-1] <= ' ') {
+			len--;
+		}
+		if (len > 0 && (tok[0] == '!' || tok[0] == '?')) {
+			return END;
+		}
+		if (len > 0 && tok[0] == '/') {
+			System.arraycopy(tok, 1, tok, 0, --len);
+			trimName();
+			return CLOSE;
+		}
+		if (len > 0 && tok[len-1] == '/') {
+			len--;
+			while (len > 0 && tok[len-1] <= ' ') {
+				len--;
+			}
+			splitName();
+			return EMPTY;
+		}
+		splitName();
+		return isVoid() ? EMPTY : OPEN;
+	}
+
+	/**
+	 * Cuts the current token down to the tag name.
+	 */
+	private void trimName() {
+		for (int i=0; i < len; i++) {
+			if (tok[i] <= ' ') {
+				len = i;
+				break;
+			}
+		}
+		nameLen = len;
+	}
+
+	/**
+	 * Finds the end of the tag name in the current token, and closes up the
+	 * white space after it, which may hold line breaks, to a single space.
+	 */
+	private void splitName() {
+		int end = 0;
+		while (end < len && tok[end] > ' ') {
+			end++;
+		}
+		int attributes = end;
+		while (attributes < len && tok[attributes] <= ' ') {
+			attributes++;
+		}
+		if (attributes > end + 1) {
+			System.arraycopy(tok, attributes, tok, end + 1, len - attributes);
+			len -= attributes - end - 1;
+		}
+		if (end < len) {
+			tok[end] = ' ';
+		}
+		nameLen = end;
+	}
+
+	/**
+	 * Tells if a tag names a void element, one that never has content and is
+	 * not closed.
+	 *
+	 * @param tag Tag, possibly with attributes
+	 * @return True for a void element such as br or img
+	 */
+	static boolean isVoid(String tag) {
+		int end = 0;
+		while (end < tag.length() && tag.charAt(end) > ' ') {
+			end++;
+		}
+		for (String v : VOID_ELEMENTS) {
+			if (v.length() == end && v.regionMatches(true, 0, tag, 0, end)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private boolean isVoid() {
+		int end = 0;
+		while (end < len && tok[end] > ' ') {
+			end++;
+		}
+		for (String v : VOID_ELEMENTS) {
+			if (v.length() == end) {
+				boolean same = true;
+				for (int i=0; i < end && same; i++) {
+					same = Character.toLowerCase(tok[i]) == v.charAt(i);
+				}
+				if (same) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Skips a comment, the "<!--" having been read, up to and including the
+	 * next "-->". The dashes of the opener count towards the closer, so that
+	 * "<!-->" and "<!--->" are empty comments, as HTML has them.
+	 */
+	private void skipComment()
+	throws IOException {
+		int dashes = 2, c;
+		while ((c = read()) >= 0) {
+			if (c == '>' && dashes >= 2) {
+				return;
+			}
+			dashes = c == '-' ? dashes + 1 : 0;
+		}
+	}
+
+	/**
+	 * Reads a text run up to the next tag or line break, starting with the
+	 * character c. A '<' that ends the run is left to be read again.
+	 *
+	 * @return False if the run is all white space
+	 */
+	private boolean readText(int c)
+	throws IOException {
+		len = 0;
+		boolean blank = c <= ' ';
+		append(c);
+		while (true) {
+			int start = pos;
+			for (; pos < limit; pos++) {
+				char ch = buf[pos];
+				if (ch == '<' || ch == '\n') {
+					break;
+				}
+				blank &= ch <= ' ';
+			}
+			append(start, pos);
+			if (pos < limit || !fill()) {
+				break;
+			}
+		}
+		if (len > 0 && tok[len-1] == '\r') {
+			len--;
+		}
+		return !blank;
+	}
+
+	private void append(int c) {
+		if (len == tok.length) {
+			tok = java.util.Arrays.copyOf(tok, len * 2);
+		}
+		tok[len++] = (char)c;
+	}
+
+	/**
+	 * Appends buf[start..end) to the current token.
+	 */
+	private void append(int start, int end) {
+		int n = end - start;
+		if (len + n > tok.length) {
+			tok = java.util.Arrays.copyOf(tok, Math.max(tok.length * 2, len + n));
+		}
+		System.arraycopy(buf, start, tok, len, n);
+		len += n;
+	}
+
+	private int read()
+	throws IOException {
+		if (pos == limit && !fill()) {
+			return -1;
+		}
+		return buf[pos++];
+	}
+
+	private boolean fill()
+	throws IOException {
+		int r = in.read(buf, 0, buf.length);
+		if (r <= 0) {
+			return false;
+		}
+		pos = 0;
+		limit = r;
+		return true;
+	}
+}
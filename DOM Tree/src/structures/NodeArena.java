@@ -0,0 +1,114 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * Storage for the nodes of a DOM tree as parallel int arrays, one slot per
+ * node: first child, sibling and parent links, and the id of the node's tag
+ * or text in a {@link StringPool}. A node is just its slot number, so a tree
+ * of a million nodes is four int arrays rather than a million objects.
+ */
+public class NodeArena {
+
+	/**
+	 * Link to no node
+	 */
+	public static final int NIL = -1;
+
+	int[] firstChild, sibling, parent, tag;
+
+	private int size;
+
+	/**
+	 * Initializes an empty arena.
+	 * 
+	 * @param cap Initial number of node slots
+	 */
+	public NodeArena(int cap) {
+		cap = Math.max(cap, 16);
+		firstChild = new int[cap];
+		sibling = new int[cap];
+		parent = new int[cap];
+		tag = new int[cap];
+	}
+
+	/**
+	 * Adds a node with no links.
+	 * 
+	 * @param tagId Pool id of the node's tag or text
+	 * @return The new node
+	 */
+	public int add(int tagId) {
+		if (size == tag.length) {
+			int cap = size + (size >> 1) + 16;
+			firstChild = Arrays.copyOf(firstChild, cap);
+			sibling = Arrays.copyOf(sibling, cap);
+			parent = Arrays.copyOf(parent, cap);
+			tag = Arrays.copyOf(tag, cap);
+		}
+		firstChild[size] = NIL;
+		sibling[size] = NIL;
+		parent[size] = NIL;
+		tag[size] = tagId;
+		return size++;
+	}
+
+	/**
+	 * Frees the unused capacity left by growth.
+	 */
+	public void trim() {
+		firstChild = Arrays.copyOf(firstChild, size);
+		sibling = Arrays.copyOf(sibling, size);
+		parent = Arrays.copyOf(parent, size);
+		tag = Arrays.copyOf(tag, size);
+	}
+
+	/**
+	 * Returns the number of nodes.
+	 * 
+	 * @return Number of nodes
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Returns the first child of a node.
+	 * 
+	 * @param n Node
+	 * @return First child, or NIL
+	 */
+	public int firstChild(int n) {
+		return firstChild[n];
+	}
+
+	/**
+	 * Returns the sibling of a node.
+	 * 
+	 * @param n Node
+	 * @return Sibling, or NIL
+	 */
+	public int sibling(int n) {
+		return sibling[n];
+	}
+
+	/**
+	 * Returns the parent of a node.
+	 * 
+	 * @param n Node
+	 * @return Parent, or NIL for a top level node
+	 */
+	public int parent(int n) {
+		return parent[n];
+	}
+
+	/**
+	 * Returns the pool id of a node's tag or text.
+	 * 
+	 * @param n Node
+	 * @return Tag id
+	 */
+	public int tag(int n) {
+		return tag[n];
+	}
+}
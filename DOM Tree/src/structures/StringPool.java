@@ -0,0 +1,288 @@
+package structures;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * A pool of strings named by int ids. Interned strings are stored once; others
+ * may be added without a lookup. The characters of all strings sit end to end
+ * in one char array, so a pooled string costs no object of its own; a String
+ * is only made when {@link #get(int)} asks for one.
+ */
+public class StringPool {
+
+	/**
+	 * Characters of all strings, end to end
+	 */
+	char[] chars = new char[1 << 12];
+	private int used;
+
+	/**
+	 * Start and length in chars of each string, by id
+	 */
+	int[] start = new int[64], length = new int[64];
+	private int count;
+
+	/**
+	 * Open-addressing hash table of interned strings: id + 1 of the string in
+	 * each slot, 0 for empty
+	 */
+	private int[] slots = new int[128];
+
+	/**
+	 * Number of strings in the hash table
+	 */
+	private int interned;
+
+	/**
+	 * Ids of the interned strings
+	 */
+	private BitSet internedIds = new BitSet();
+
+	/**
+	 * Strings already made by get, by id; grown on demand
+	 */
+	private String[] made = new String[0];
+
+	/**
+	 * Returns the id of a string, adding it to the pool if it is not there.
+	 * 
+	 * @param s String
+	 * @return Id
+	 */
+	public int intern(String s) {
+		int id = find(s);
+		if (id >= 0) {
+			return id;
+		}
+		char[] buf = s.toCharArray();
+		return intern(buf, 0, buf.length);
+	}
+
+	/**
+	 * Returns the id of the string in a slice of a char array, adding it to the
+	 * pool if it is not there.
+	 * 
+	 * @param buf Characters
+	 * @param off Start of string in buf
+	 * @param len Length of string
+	 * @return Id
+	 */
+	public int intern(char[] buf, int off, int len) {
+		int mask = slots.length - 1;
+		int s = hash(buf, off, len) & mask;
+		for (int id; (id = slots[s]) != 0; s = (s + 1) & mask) {
+			if (equals(id - 1, buf, off, len)) {
+				return id - 1;
+			}
+		}
+		int id = add(buf, off, len);
+		slots[s] = id + 1;
+		internedIds.set(id);
+		if (++interned * 2 > slots.length) {
+			rehash();
+		}
+		return id;
+	}
+
+	/**
+	 * Adds a string to the pool under a new id, without looking for it first,
+	 * as {@link #add(char[], int, int)} does.
+	 * 
+	 * @param s String
+	 * @return Id
+	 */
+	public int add(String s) {
+		char[] buf = s.toCharArray();
+		return add(buf, 0, buf.length);
+	}
+
+	/**
+	 * Adds the string in a slice of a char array to the pool under a new id,
+	 * without looking for it first, and without making it findable by
+	 * {@link #find(String)} or shared by {@link #intern(String)}. This suits
+	 * strings that are mostly unique, such as text, for which a lookup would
+	 * cost more than it saves.
+	 * 
+	 * @param buf Characters
+	 * @param off Start of string in buf
+	 * @param len Length of string
+	 * @return Id
+	 */
+	public int add(char[] buf, int off, int len) {
+		if (count == start.length) {
+			start = Arrays.copyOf(start, count * 2 + 16);
+			length = Arrays.copyOf(length, count * 2 + 16);
+		}
+		if (used + len > chars.length) {
+			chars = Arrays.copyOf(chars, Math.max(chars.length * 2, used + len));
+		}
+		System.arraycopy(buf, off, chars, used, len);
+		start[count] = used;
+		length[count] = len;
+		used += len;
+		return count++;
+	}
+
+	/**
+	 * Returns the id of an interned string, or -1 if it is not in the pool.
+	 * 
+	 * @param str String
+	 * @return Id, or -1
+	 */
+	public int find(String str) {
+		int h = 0;
+		for (int i=0; i < str.length(); i++) {
+			h = 31*h + str.charAt(i);
+		}
+		int mask = slots.length - 1;
+		for (int s=mix(h) & mask, id; (id = slots[s]) != 0; s = (s + 1) & mask) {
+			if (equals(id - 1, str)) {
+				return id - 1;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Tells if the string with an id was interned, rather than added by
+	 * {@link #add(char[], int, int)}.
+	 * 
+	 * @param id Id
+	 * @return True if the string is interned
+	 */
+	public boolean isInterned(int id) {
+		return internedIds.get(id);
+	}
+
+	/**
+	 * Returns the string with an id.
+	 * 
+	 * @param id Id
+	 * @return String
+	 */
+	public String get(int id) {
+		if (id >= made.length) {
+			made = Arrays.copyOf(made, Math.max(id + 1, made.length * 2));
+		}
+		String s = made[id];
+		if (s == null) {
+			s = made[id] = new String(chars, start[id], length[id]);
+		}
+		return s;
+	}
+
+	/**
+	 * Appends the string with an id to a string builder, without making a String.
+	 * 
+	 * @param id Id
+	 * @param sb String builder
+	 */
+	public void appendTo(int id, StringBuilder sb) {
+		sb.append(chars, start[id], length[id]);
+	}
+
+	/**
+	 * Appends a string up to its first white space to a string builder, which
+	 * for a pooled tag is its name without the attributes.
+	 * 
+	 * @param id String id
+	 * @param sb String builder
+	 */
+	public void appendNameTo(int id, StringBuilder sb) {
+		int from = start[id], end = from, limit = from + length[id];
+		while (end < limit && chars[end] > ' ') {
+			end++;
+		}
+		sb.append(chars, from, end - from);
+	}
+
+	/**
+	 * Frees the unused capacity left by growth.
+	 */
+	public void trim() {
+		chars = Arrays.copyOf(chars, used);
+		start = Arrays.copyOf(start, count);
+		length = Arrays.copyOf(length, count);
+	}
+
+	/**
+	 * Returns the length of the string with an id.
+	 * 
+	 * @param id Id
+	 * @return Length
+	 */
+	public int length(int id) {
+		return length[id];
+	}
+
+	/**
+	 * Returns the number of strings in the pool.
+	 * 
+	 * @return Number of strings
+	 */
+	public int size() {
+		return count;
+	}
+
+	/**
+	 * Tells if the string with an id equals a string.
+	 * 
+	 * @param id Id
+	 * @param str String
+	 * @return True if equal
+	 */
+	public boolean equals(int id, String str) {
+		if (length[id] != str.length()) {
+			return false;
+		}
+		for (int i=0, p=start[id]; i < str.length(); i++, p++) {
+			if (chars[p] != str.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private boolean equals(int id, char[] buf, int off, int len) {
+		if (length[id] != len) {
+			return false;
+		}
+		for (int i=0, p=start[id]; i < len; i++, p++) {
+			if (chars[p] != buf[off+i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private void rehash() {
+		int[] old = slots;
+		slots = new int[slots.length * 2];
+		int mask = slots.length - 1;
+		for (int slot : old) {
+			if (slot == 0) {
+				continue;
+			}
+			int id = slot - 1;
+			int s = hash(chars, start[id], length[id]) & mask;
+			while (slots[s] != 0) {
+				s = (s + 1) & mask;
+			}
+			slots[s] = id + 1;
+		}
+	}
+
+	private static int hash(char[] buf, int off, int len) {
+		int h = 0;
+		for (int i=off; i < off+len; i++) {
+			h = 31*h + buf[i];
+		}
+		return mix(h);
+	}
+
+	private static int mix(int h) {
+		h *= 0x9E3779B9;
+		return h ^ (h >>> 16);
+	}
+}
@@ -14,6 +14,13 @@ public class TagNode {
 	 */
 	String tag;
 	
+	/**
+	 * Attributes of an element, as written after the tag name, for example
+	 * href="x.html" for &lt;a href="x.html"&gt;; null if there are none. Only
+	 * the tag name is used to find elements and to close them.
+	 */
+	String attributes;
+	
 	/**
 	 * First child of this node
 	 */
@@ -25,7 +32,25 @@ public class TagNode {
 	TagNode sibling;
 	
 	/**
-	 * Initializes this tag node with tag/txt, first child, and sibling
+	 * Parent of this node, null at the top level. Kept up to date by Tree along
+	 * with its tag index.
+	 */
+	TagNode parent;
+	
+	/**
+	 * Node of which this node is the sibling, null for a first child
+	 */
+	TagNode prevSibling;
+	
+	/**
+	 * True if this node is an element rather than text. An element may have no
+	 * children, as br or &lt;x/&gt; do, so this cannot be told from firstChild.
+	 */
+	boolean element;
+	
+	/**
+	 * Initializes this tag node with tag/txt, first child, and sibling. The node
+	 * is taken for an element if it has a first child, and for text otherwise.
 	 * 
 	 * @param tag Tag or text
 	 * @param firstChild First child
@@ -35,14 +60,15 @@ public class TagNode {
 		this.tag = tag;
 		this.firstChild = firstChild;
 		this.sibling = sibling;
+		this.element = firstChild != null;
 	}
 	
 	/* (non-Javadoc)
 	 * @see java.lang.Object#toString()
 	 */
 	public String toString() {
-		if (firstChild != null) {
-			return "<" + tag + ">";
+		if (element || firstChild != null) {
+			return "<" + tag + (attributes == null ? "" : " " + attributes) + ">";
 		} else {
 			return tag;
 		}
@@ -0,0 +1,28 @@
+package structures;
+
+/**
+ * Callbacks for a {@link TreeWalker} traversal of a DOM tree.
+ */
+public abstract class TagVisitor {
+
+	/**
+	 * Called when the walker reaches a node, before its children. The visitor
+	 * may change the node, but not the links between nodes.
+	 * 
+	 * @param walker Walker, positioned at the node
+	 * @param node Node reached
+	 * @return True to visit the node's children, false to skip them
+	 */
+	public abstract boolean enter(TreeWalker walker, TagNode node);
+
+	/**
+	 * Called after the children of a node have been visited. Only called for
+	 * nodes that have children and whose enter returned true. Does nothing
+	 * unless overridden.
+	 * 
+	 * @param walker Walker, positioned at the node
+	 * @param node Node whose children are done
+	 */
+	public void leave(TreeWalker walker, TagNode node) {
+	}
+}
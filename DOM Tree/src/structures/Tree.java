@@ -1,6 +1,15 @@
 package structures;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * This class implements an HTML DOM Tree. Each node of the tree is a TagNode, with fields for
@@ -19,6 +28,18 @@ public class Tree {
 	 */
 	Scanner sc;
 	
+	/**
+	 * Reader used to read input HTML when building the tree, if there is no scanner
+	 */
+	Reader reader;
+	
+	/**
+	 * Elements of the tree by tag. Each set holds nodes by identity, so text
+	 * that happens to equal a tag name is never taken for an element. Null
+	 * until the tree is first indexed.
+	 */
+	HashMap<String,Set<TagNode>> index;
+	
 	/**
 	 * Initializes this tree object with scanner for input HTML file
 	 * 
@@ -30,56 +51,169 @@ public class Tree {
 	}
 	
 	/**
-	 * Builds the DOM tree from input HTML file, through scanner passed
-	 * in to the constructor and stored in the sc field of this object. 
+	 * Initializes this tree object with a reader for input HTML
+	 * 
+	 * @param reader Reader for input HTML
+	 */
+	public Tree(Reader reader) {
+		this.reader = reader;
+		root = null;
+	}
+	
+	/**
+	 * Builds the DOM tree from input HTML, through the scanner or reader passed
+	 * in to the constructor. The input is split into tags and text by an
+	 * {@link HtmlTokenizer}, so any line layout is accepted. Each open element
+	 * keeps a pointer to its last child, so every node is appended in constant time.
+	 * 
+	 * A closing tag closes the innermost open element of the same name, and
+	 * any elements opened inside it; a closing tag that matches no open element
+	 * is ignored. Anything after the first element is closed becomes a sibling of the root.
 	 * 
 	 * The root of the tree that is built is referenced by the root field of this object.
+	 * Every element is entered in the tag index as it is made.
 	 */
 	public void build() {
-		if(!sc.hasNextLine()) return;
+		HtmlTokenizer tok = new HtmlTokenizer(reader != null ? reader : new ScannerReader(sc));
+		TagNode[] open = new TagNode[16], last = new TagNode[16];
+		int depth = 0;
+		TagNode lastRoot = null;
+		root = null;
+		index = new HashMap<String,Set<TagNode>>();
+		try {
+			for (int type; (type = tok.next()) != HtmlTokenizer.END; ) {
+				if (type == HtmlTokenizer.CLOSE) {
+					for (int d=depth-1; d >= 0; d--) {
+						if (tok.names(open[d].tag)) {
+							depth = d;
+							break;
+						}
+					}
+					continue;
+				}
+				TagNode node = new TagNode(type == HtmlTokenizer.TEXT ? tok.value() : tok.tag(), null, null);
+				if (type != HtmlTokenizer.TEXT) {
+					node.element = true;
+					node.attributes = tok.attributes();
+					index(node);
+				}
+				if (depth == 0) {
+					if (root == null) {
+						root = node;
+					} else {
+						lastRoot.sibling = node;
+						node.prevSibling = lastRoot;
+					}
+					lastRoot = node;
+				} else {
+					node.parent = open[depth-1];
+					if (last[depth-1] == null) {
+						open[depth-1].firstChild = node;
+					} else {
+						last[depth-1].sibling = node;
+						node.prevSibling = last[depth-1];
+					}
+					last[depth-1] = node;
+				}
+				if (type == HtmlTokenizer.OPEN) {
+					if (depth == open.length) {
+						open = Arrays.copyOf(open, depth*2);
+						last = Arrays.copyOf(last, depth*2);
+					}
+					open[depth] = node;
+					last[depth++] = null;
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+	
+	/**
+	 * Feeds the lines of a scanner to the tokenizer, each followed by a line break.
+	 */
+	private static class ScannerReader extends Reader {
+		private Scanner sc;
+		private String line = "";
+		private int pos = 1;
 		
-		Stack<TagNode> tags = new Stack<TagNode>();
-		root = new TagNode(removeBrackets(sc.nextLine()), null, null);
-		tags.push(root);
+		ScannerReader(Scanner sc) {
+			this.sc = sc;
+		}
 		
-		while(sc.hasNextLine()) {
-			String curr = sc.nextLine();
-			boolean currIsTag = (curr.indexOf("<") == 0) ? true : false;
-			boolean currIsCloseTag = (curr.indexOf("/") == 1) ? true : false;
-			if(currIsTag && currIsCloseTag) tags.pop();
-			else {
-				if(currIsTag) {
-					curr = removeBrackets(curr);
-				}
-				TagNode node = new TagNode(curr, null, null);
-				if(tags.peek().firstChild == null) {
-					tags.peek().firstChild = node;
-				} else {
-					TagNode tmp = tags.peek().firstChild;
-					while(tmp.sibling != null) {
-						tmp = tmp.sibling;
+		public int read(char[] cbuf, int off, int len) {
+			int n = 0;
+			while (n < len) {
+				if (pos > line.length()) {
+					if (n > 0 || !sc.hasNextLine()) {
+						break;
 					}
-					tmp.sibling = node;
+					line = sc.nextLine();
+					pos = 0;
+				}
+				int count = Math.min(len - n, line.length() - pos);
+				line.getChars(pos, pos + count, cbuf, off + n);
+				pos += count;
+				n += count;
+				if (pos == line.length() && n < len) {
+					cbuf[off + n++] = '\n';
+					pos++;
 				}
-				if(currIsTag) tags.push(node);
 			}
+			return n == 0 ? -1 : n;
+		}
+		
+		public void close() {
 		}
 	}
 	
 	/**
-	 * Replaces all occurrences of an old tag in the DOM tree with a new tag
+	 * Replaces all occurrences of an old tag in the DOM tree with a new tag. Only
+	 * the indexed elements with the old tag are touched; text is left alone.
 	 * 
 	 * @param oldTag Old tag
 	 * @param newTag Replacement tag
 	 */
 	public void replaceTag(String oldTag, String newTag) {
-		recursionReplaceTag(root, oldTag, newTag);
+		replaceTags(Collections.singletonMap(oldTag, newTag));
 	}
-	private void recursionReplaceTag(TagNode node, String oldTag, String newTag) {
-		if(node == null) return;
-		if(node.tag.equals(oldTag)) node.tag = newTag;
-		if(node.firstChild != null) recursionReplaceTag(node.firstChild, oldTag, newTag);
-		if(node.sibling != null) recursionReplaceTag(node.sibling, oldTag, newTag);
+	
+	/**
+	 * Renames elements by a mapping from old to new tags. All the elements to
+	 * rename are taken out of the index before any is renamed, so an element
+	 * whose new tag is itself renamed is not renamed twice.
+	 * 
+	 * @param renames New tag for each old tag
+	 */
+	private void replaceTags(Map<String,String> renames) {
+		elements();
+		ArrayList<Set<TagNode>> moved = new ArrayList<Set<TagNode>>();
+		ArrayList<String> newTags = new ArrayList<String>();
+		for (Map.Entry<String,String> entry : renames.entrySet()) {
+			if (!entry.getKey().equals(entry.getValue())) {
+				Set<TagNode> nodes = index.remove(entry.getKey());
+				if (nodes != null) {
+					moved.add(nodes);
+					newTags.add(entry.getValue());
+				}
+			}
+		}
+		for (int i=0; i < moved.size(); i++) {
+			Set<TagNode> nodes = moved.get(i);
+			String newTag = newTags.get(i);
+			for (TagNode node : nodes) {
+				node.tag = newTag;
+			}
+			Set<TagNode> others = index.get(newTag);
+			if (others == null) {
+				index.put(newTag, nodes);
+			} else if (others.size() >= nodes.size()) {
+				others.addAll(nodes);
+			} else {
+				nodes.addAll(others);
+				index.put(newTag, nodes);
+			}
+		}
 	}
 	
 	/**
@@ -87,26 +221,97 @@ public class Tree {
 	 * tag appears directly under the td tag of every column of this row.
 	 * 
 	 * @param row Row to bold, first row is numbered 1 (not 0).
+	 * @throws IllegalArgumentException If a table does not have the row; the tree is then left unchanged
 	 */
 	public void boldRow(int row) {
-		recursionBoldRow(root, row);
+		boldRows(new int[] {row});
 	}
-	private void recursionBoldRow(TagNode node, int row) {
-		if(node == null) return;
-		if(node.tag.equals("table")) {
-			TagNode nodeRow = node.firstChild;
-			for(int i = 2; i <= row; i++) {
-				nodeRow = nodeRow.sibling;
+	
+	/**
+	 * Boldfaces a number of rows in turn, with the same result as calling
+	 * boldRow for each. The tables are found and all the rows checked once,
+	 * up front, unless a table is a row or column of another; then the rows
+	 * are done one at a time. If a table does not have one of the rows, the
+	 * rows before it are still boldfaced before the exception is thrown.
+	 * 
+	 * @param rows Rows to bold, in order
+	 * @throws IllegalArgumentException If a table does not have one of the rows
+	 */
+	private void boldRows(int[] rows) {
+		Set<TagNode> tables = elements().get("table");
+		if (tables == null) {
+			return;
+		}
+		ArrayList<TagNode> found = new ArrayList<TagNode>();
+		boolean tangled = false;
+		for (TagNode table : tables) {
+			if (table.firstChild != null) {
+				found.add(table);
+			}
+			TagNode up = table.parent;
+			tangled |= up != null && (tables.contains(up) || (up.parent != null && tables.contains(up.parent)));
+		}
+		if (tangled) {
+			// a table that is a row or a column of another changes when that one is
+			// boldfaced, so rows are done one at a time, outer tables first; an empty
+			// one counts too, as boldfacing it as a column gives it a child
+			if (rows.length > 1) {
+				for (int row : rows) {
+					boldRows(new int[] {row});
+				}
+				return;
+			}
+			final IdentityHashMap<TagNode,Integer> depth = new IdentityHashMap<TagNode,Integer>();
+			for (TagNode table : found) {
+				int d = 0;
+				for (TagNode up=table.parent; up != null; up=up.parent) {
+					d++;
+				}
+				depth.put(table, d);
+			}
+			Collections.sort(found, new Comparator<TagNode>() {
+				public int compare(TagNode a, TagNode b) {
+					return depth.get(a) - depth.get(b);
+				}
+			});
+		}
+		TagNode[][] rowNodes = new TagNode[rows.length][];
+		IllegalArgumentException failure = null;
+		int valid = 0;
+		for (; valid < rows.length; valid++) {
+			int row = rows[valid];
+			rowNodes[valid] = new TagNode[found.size()];
+			for (int t=0; t < found.size() && failure == null; t++) {
+				TagNode nodeRow = found.get(t).firstChild;
+				for (int i=2; i <= row && nodeRow != null; i++) {
+					nodeRow = nodeRow.sibling;
+				}
+				if (row < 1 || nodeRow == null) {
+					failure = new IllegalArgumentException("table does not have row " + row);
+				}
+				rowNodes[valid][t] = nodeRow;
 			}
-			TagNode nodeCol = nodeRow.firstChild;
-			while(nodeCol != null) {
-				nodeCol.firstChild = new TagNode("b", nodeCol.firstChild, nodeCol.sibling);
-				nodeCol.firstChild.sibling = null;
-				nodeCol = nodeCol.sibling;
+			if (failure != null) {
+				break;
 			}
 		}
-		if(node.firstChild != null) recursionBoldRow(node.firstChild, row);
-		if(node.sibling != null) recursionBoldRow(node.sibling, row);
+		for (int r=0; r < valid; r++) {
+			for (TagNode nodeRow : rowNodes[r]) {
+				for (TagNode nodeCol=nodeRow.firstChild; nodeCol != null; nodeCol=nodeCol.sibling) {
+					TagNode bold = new TagNode("b", nodeCol.firstChild, null);
+					bold.element = true;
+					bold.parent = nodeCol;
+					for (TagNode ptr=bold.firstChild; ptr != null; ptr=ptr.sibling) {
+						ptr.parent = bold;
+					}
+					nodeCol.firstChild = bold;
+					index(bold);
+				}
+			}
+		}
+		if (failure != null) {
+			throw failure;
+		}
 	}
 	
 	/**
@@ -114,62 +319,251 @@ public class Tree {
 	 * are removed. If the tag is ol or ul, then All occurrences of such a tag are removed from the tree, and, 
 	 * in addition, all the li tags immediately under the removed tag are converted to p tags. 
 	 * 
+	 * The children of a removed tag take its place among its siblings, in place.
+	 * The elements to remove come from the tag index, and each is unlinked through
+	 * its parent and previous sibling, so the work done is in the number of
+	 * matches and their children. Matches may be removed in any order: a match
+	 * nested in another is simply moved up with its siblings first.
+	 * 
 	 * @param tag Tag to be removed, can be p, em, b, ol, or ul
 	 */
 	public void removeTag(String tag) {
-		recursionRemoveTag(root, tag);
-	}
-	private void recursionRemoveTag(TagNode node, String tag) {
-		if(node == null) return;
-		if(node.tag.equals(tag) && node.firstChild == null) {
-			node = null;
+		Set<TagNode> nodes = elements().remove(tag);
+		if (nodes == null) {
 			return;
 		}
-		if(node.firstChild == null) return;
-		TagNode ptr1 = node.firstChild;
-		while(ptr1 != null) {
-			recursionRemoveTag(ptr1, tag);
-			if(ptr1.tag.equals(tag)) {
-				node.firstChild = buildSubTree(node.firstChild, tag);
+		boolean list = tag.equals("ol") || tag.equals("ul");
+		Set<TagNode> items = list ? index.get("li") : null;
+		Set<TagNode> kept = null;
+		for (TagNode node : nodes) {
+			if (node.firstChild == null) {
+				// an empty element has nothing to put in its place, so it stays
+				if (kept == null) {
+					kept = newNodeSet();
+				}
+				kept.add(node);
+				continue;
+			}
+			TagNode first = node.firstChild, last = null;
+			for (TagNode ptr=first; ptr != null; ptr=ptr.sibling) {
+				ptr.parent = node.parent;
+				if (items != null && items.remove(ptr)) {
+					ptr.tag = "p";
+					index(ptr);
+				}
+				last = ptr;
 			}
-			ptr1 = ptr1.sibling;
+			splice(node, first, last);
+			node.firstChild = null;
 		}
-		
-		if(node.sibling != null) recursionRemoveTag(node.sibling, tag);
-		recursionRemoveTag(node.firstChild, tag);
+		if (items != null && items.isEmpty()) {
+			index.remove("li");
+		}
+		if (kept != null) {
+			index.put(tag, kept);
+		}
+	}
+	
+	/**
+	 * Puts a chain of siblings, already linked to each other and to the node's
+	 * parent, in place of a node.
+	 * 
+	 * @param node Node to replace
+	 * @param first First node of the chain
+	 * @param last Last node of the chain
+	 */
+	private void splice(TagNode node, TagNode first, TagNode last) {
+		first.prevSibling = node.prevSibling;
+		if (node.prevSibling != null) {
+			node.prevSibling.sibling = first;
+		} else if (node.parent != null) {
+			node.parent.firstChild = first;
+		} else {
+			root = first;
+		}
+		last.sibling = node.sibling;
+		if (node.sibling != null) {
+			node.sibling.prevSibling = last;
+		}
+		node.sibling = node.parent = node.prevSibling = null;
+	}
+	
+	/**
+	 * Returns the tag index, building it first if the tree was not built by
+	 * {@link #build()}.
+	 */
+	private HashMap<String,Set<TagNode>> elements() {
+		if (index == null) {
+			reindex();
+		}
+		return index;
 	}
+	
+	/**
+	 * Enters an element in the tag index.
+	 */
+	private void index(TagNode node) {
+		Set<TagNode> nodes = index.get(node.tag);
+		if (nodes == null) {
+			nodes = newNodeSet();
+			index.put(node.tag, nodes);
+		}
+		nodes.add(node);
+	}
+	
+	private static Set<TagNode> newNodeSet() {
+		return Collections.newSetFromMap(new IdentityHashMap<TagNode,Boolean>());
+	}
+	
 
-	private TagNode buildSubTree(TagNode problem, String tag) {
-		TagNode subtree = null;
-		TagNode last = null;
-		while(problem != null) {
-			if(problem.tag.equals(tag)) {
-				TagNode ptr1 = problem.firstChild;
-				while(ptr1 != null) {
-					if(subtree == null) {
-						if(tag.equals("ol") || tag.equals("ul")) subtree = new TagNode("p", ptr1.firstChild, null);
-						else subtree = new TagNode(ptr1.tag, ptr1.firstChild, null);
-						last = subtree;
-					} else {
-						if(tag.equals("ol") || tag.equals("ul")) last.sibling = new TagNode("p", ptr1.firstChild, null);
-						else last.sibling = new TagNode(ptr1.tag, ptr1.firstChild, null);
-						last = last.sibling;
+	/**
+	 * Walks the whole tree with a visitor.
+	 * 
+	 * @param visitor Visitor
+	 */
+	void walk(TagVisitor visitor) {
+		if (root != null) {
+			new TreeWalker().walk(new TagNode(null, root, null), visitor);
+		}
+	}
+	
+	/**
+	 * Applies a list of mutations in order, with the same result as calling the
+	 * matching methods one after another. Runs of consecutive mutations of one
+	 * kind are fused where that cannot change the result:
+	 * 
+	 * - a run of replaceTags is composed into one renaming, so each element is
+	 *   renamed once;
+	 * - a run of boldRows finds the tables and checks the rows once;
+	 * - a run of addTags whose words can never match the same text is done in
+	 *   one pass over the text, as by {@link #addTags(Map)}. A word is split
+	 *   off into a new run if it holds white space, if it is already in the run
+	 *   with another tag, or if it is another word of the run with one
+	 *   punctuation mark added or taken away.
+	 * 
+	 * A removeTag touches only the elements it removes, so each is applied on its own.
+	 * 
+	 * @param mutations Mutations to apply
+	 * @throws IllegalArgumentException If a boldRow fails; the mutations before it have then
+	 *         been applied, and none after it
+	 */
+	public void apply(List<TreeMutation> mutations) {
+		apply(mutations, null);
+	}
+	
+	/**
+	 * Applies a list of mutations in order, as {@link #apply(List)} does, doing
+	 * runs of addTags on a fork-join pool, as {@link #addTags(Map, ForkJoinPool)} does.
+	 * 
+	 * @param mutations Mutations to apply
+	 * @param pool Pool to run on, or null to run on this thread
+	 * @throws IllegalArgumentException If a boldRow fails; the mutations before it have then
+	 *         been applied, and none after it
+	 */
+	public void apply(List<TreeMutation> mutations, ForkJoinPool pool) {
+		int n = mutations.size();
+		for (int i=0, j; i < n; i=j) {
+			int type = mutations.get(i).type;
+			j = i + 1;
+			if (type == TreeMutation.REPLACE_TAG) {
+				LinkedHashMap<String,String> renames = new LinkedHashMap<String,String>();
+				for (j=i; j < n && mutations.get(j).type == type; j++) {
+					TreeMutation m = mutations.get(j);
+					// whatever was renamed to the old tag goes on to the new one
+					for (Map.Entry<String,String> entry : renames.entrySet()) {
+						if (entry.getValue().equals(m.target)) {
+							entry.setValue(m.tag);
+						}
+					}
+					if (!renames.containsKey(m.target)) {
+						renames.put(m.target, m.tag);
 					}
-					ptr1 = ptr1.sibling;
 				}
-			} else {
-				if(subtree == null) {
-					subtree = new TagNode(problem.tag, problem.firstChild, null);
-					last = subtree;
-				} else {
-					last.sibling = new TagNode(problem.tag, problem.firstChild, null);
-					last = last.sibling;
+				replaceTags(renames);
+			} else if (type == TreeMutation.BOLD_ROW) {
+				while (j < n && mutations.get(j).type == type) {
+					j++;
+				}
+				int[] rows = new int[j - i];
+				for (int r=0; r < rows.length; r++) {
+					rows[r] = mutations.get(i + r).row;
 				}
+				boldRows(rows);
+			} else if (type == TreeMutation.ADD_TAG) {
+				HashMap<String,String> words = new HashMap<String,String>();
+				j = addRun(mutations, i, words);
+				addTags(words, pool);
+			} else {
+				removeTag(mutations.get(i).target);
 			}
-			problem = problem.sibling;
 		}
-		return subtree;
 	}
+	
+	/**
+	 * Gathers a run of addTag mutations whose words can be matched together.
+	 * 
+	 * @param mutations Mutations
+	 * @param i Index of the first addTag of the run
+	 * @param words Filled with the tag for each word of the run
+	 * @return Index after the run
+	 */
+	private static int addRun(List<TreeMutation> mutations, int i, HashMap<String,String> words) {
+		HashMap<String,String> seen = new HashMap<String,String>();
+		for (; i < mutations.size() && mutations.get(i).type == TreeMutation.ADD_TAG; i++) {
+			TreeMutation m = mutations.get(i);
+			if (!m.tag.equalsIgnoreCase("em") && !m.tag.equalsIgnoreCase("b")) {
+				continue;
+			}
+			String word = lowerCase(m.target);
+			boolean space = false;
+			for (int c=0; c < word.length() && !space; c++) {
+				space = word.charAt(c) <= ' ';
+			}
+			if (!seen.isEmpty() && (space || clashes(seen, word, m.tag))) {
+				break;
+			}
+			seen.put(word, m.tag);
+			words.put(m.target, m.tag);
+			if (space) {
+				return i + 1;
+			}
+		}
+		return i;
+	}
+	
+	/**
+	 * Tells if a word could match the same text as a word already in a run,
+	 * other than the same word with the same tag.
+	 */
+	private static boolean clashes(HashMap<String,String> seen, String word, String tag) {
+		String other = seen.get(word);
+		if (other != null) {
+			return !other.equals(tag);
+		}
+		String marks = ".,?!:;";
+		int last = word.length() - 1;
+		if (last >= 0 && marks.indexOf(word.charAt(last)) >= 0 && seen.containsKey(word.substring(0, last))) {
+			return true;
+		}
+		for (int c=0; c < marks.length(); c++) {
+			if (seen.containsKey(word + marks.charAt(c))) {
+				return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Lower-cases a string one character at a time, as {@link WordMatcher} does.
+	 */
+	private static String lowerCase(String s) {
+		char[] chars = s.toCharArray();
+		for (int c=0; c < chars.length; c++) {
+			chars[c] = Character.toLowerCase(chars[c]);
+		}
+		return new String(chars);
+	}
+	
 	/**
 	 * Adds a tag around all occurrences of a word in the DOM tree.
 	 * 
@@ -177,120 +571,337 @@ public class Tree {
 	 * @param tag Tag to be added
 	 */
 	public void addTag(String word, String tag) {
-		if(tag.equalsIgnoreCase("em") || tag.equalsIgnoreCase("b")) {
-			recursiveAddTag(root, word, tag);
-			cleanTree(root);
-		}	
-	}
-	private void recursiveAddTag(TagNode node, String word, String tag) {
-		if(node == null) return;
-		if(node.firstChild == null) return;
-		else {
-			TagNode ptr = node.firstChild;
-			while(ptr != null) {
-				recursiveAddTag(ptr, word, tag);
-				int idx = ptr.tag.toLowerCase().indexOf(word.toLowerCase());
-				if(idx >= 0) {
-					if(ptr.tag.equalsIgnoreCase(word) || ptr.tag.substring(0, ptr.tag.length() - 1).equalsIgnoreCase(word)) {
-						if(ptr.tag.equalsIgnoreCase(word)) node.firstChild = buildSubTree2(node.firstChild, word, tag);
-						else node.firstChild = buildSubTree2(node.firstChild, word + ptr.tag.charAt(ptr.tag.length() - 1), tag);
-					} else {
-						if((word.length() != 1) && idx == 0 && ptr.tag.toLowerCase().charAt(idx + word.length() - 2) != word.charAt(word.length() - 1)) {
-							
-						} else if((idx == 0 && (ptr.tag.charAt(idx + word.length()) == ' ' || ptr.tag.charAt(idx + word.length()) == '.' || ptr.tag.charAt(idx + word.length()) == ',' || ptr.tag.charAt(idx + word.length()) == '?' || ptr.tag.charAt(idx + word.length()) == '!' || ptr.tag.charAt(idx + word.length()) == ':' || ptr.tag.charAt(idx + word.length()) == ';'))
-								|| (ptr.tag.charAt(idx - 1) == ' ' && (ptr.tag.substring(idx).equalsIgnoreCase(word)))
-								|| (ptr.tag.charAt(idx - 1) == ' ' && (ptr.tag.charAt(idx + word.length()) == ' ' || ptr.tag.charAt(idx + word.length()) == '.' || ptr.tag.charAt(idx + word.length()) == ',' || ptr.tag.charAt(idx + word.length()) == '?' || ptr.tag.charAt(idx + word.length()) == '!' || ptr.tag.charAt(idx + word.length()) == ':' || ptr.tag.charAt(idx + word.length()) == ';'))) {
-							ArrayList<String> stringList = new ArrayList<String>();
-							stringList.add(ptr.tag.substring(0, idx));
-							if(ptr.tag.charAt(ptr.tag.length() - 1) == '.' || ptr.tag.charAt(ptr.tag.length() - 1) == ',' || ptr.tag.charAt(ptr.tag.length() - 1) == '?' || ptr.tag.charAt(ptr.tag.length() - 1) == '!'|| ptr.tag.charAt(ptr.tag.length() - 1) == ':' || ptr.tag.charAt(ptr.tag.length() - 1) == ';') {
-								System.out.println("idx is " + idx);
-								try {
-									if(ptr.tag.substring(idx , idx + word.length() + 1).contains(".") || ptr.tag.substring(idx , idx + word.length() + 1).contains(",") || ptr.tag.substring(idx , idx + word.length() + 1).contains("?") || ptr.tag.substring(idx , idx + word.length() + 1).contains("!") || ptr.tag.substring(idx , idx + word.length() + 1).contains(":") || ptr.tag.substring(idx , idx + word.length() + 1).contains(";")) {
-										stringList.add(ptr.tag.substring(idx, idx + word.length() + 1));
-										stringList.add(ptr.tag.substring(idx + word.length() + 1));	
-									} else {
-										stringList.add(ptr.tag.substring(idx, idx + word.length()));
-										stringList.add(ptr.tag.substring(idx + word.length()));
-									}
-								} catch (NullPointerException e) {
-									stringList.add(ptr.tag.substring(idx, idx + word.length()));
-									stringList.add(ptr.tag.substring(idx + word.length()));
-								}
-							} else {
-								stringList.add(ptr.tag.substring(idx, idx + word.length()));
-								stringList.add(ptr.tag.substring(idx + word.length()));
-							}
-							System.out.println("<" + stringList.get(0) + ", " + stringList.get(1) + ", " + stringList.get(2) + ">");
-							if(stringList.get(0).equals("")) {
-								ptr.tag = tag;
-								ptr.firstChild = new TagNode(stringList.get(1), null, null);
-								ptr.sibling =  new TagNode(stringList.get(2), null, ptr.sibling);
-							} else if(stringList.get(2).equals("")) {
-								ptr.tag = stringList.get(0);
-								if(ptr.sibling == null) {
-									ptr.sibling = new TagNode(null, null, null);
-								}
-								ptr.sibling.tag = tag;
-								ptr.sibling.firstChild = new TagNode(stringList.get(1), null, ptr.sibling.sibling);
-							} else {
-								ptr.tag = stringList.get(0);
-								if(ptr.sibling == null) {
-									ptr.sibling = new TagNode(null, null, null);
-								}
-								ptr.sibling.tag = tag;
-								ptr.sibling.firstChild = new TagNode(stringList.get(1), null, null);
-								ptr.sibling.sibling = new TagNode(stringList.get(2), null, ptr.sibling.sibling);
-							}
-						}
-					}	
+		addTags(Collections.singletonMap(word, tag));
+	}
+	
+	/**
+	 * Adds tags around all occurrences of a number of words in the DOM tree. A
+	 * word occurs, ignoring case, where it stands between white space or the
+	 * ends of a text, and may be followed by one of the punctuation marks
+	 * . , ? ! : ; which is then tagged with it. Only em and b tags are added;
+	 * words with other tags are ignored. Text that is already tagged as a whole
+	 * with the same tag, as in &lt;b&gt;word&lt;/b&gt;, is left as it is.
+	 * 
+	 * The words are compiled into one {@link WordMatcher}, so each text node is
+	 * read once however many words there are. A text node with matches is
+	 * replaced, among its siblings, by its text and tagged pieces.
+	 * 
+	 * @param wordToTag Tag to add around each word
+	 */
+	public void addTags(Map<String,String> wordToTag) {
+		addTags(wordToTag, null);
+	}
+	
+	/**
+	 * Adds tags around all occurrences of a number of words in the DOM tree, as
+	 * {@link #addTags(Map)} does, reading the text of large documents on a
+	 * fork-join pool.
+	 * 
+	 * The tree is cut into independent subtrees of fewer than PARALLEL_THRESHOLD
+	 * nodes, each under a node with a larger subtree. Tasks take runs of these
+	 * subtrees with about PARALLEL_THRESHOLD nodes in all, each with its own
+	 * copy of the matcher. A task changes nothing but the insides of its
+	 * subtrees, so tasks never touch the same links. The text left over, that
+	 * is directly under the large nodes, is done when the tasks are joined, and
+	 * then the new elements are indexed. The result is the same as with no pool.
+	 * 
+	 * @param wordToTag Tag to add around each word
+	 * @param pool Pool to run on, or null to run on this thread
+	 */
+	public void addTags(Map<String,String> wordToTag, ForkJoinPool pool) {
+		HashMap<String,String> words = new HashMap<String,String>();
+		for (Map.Entry<String,String> entry : wordToTag.entrySet()) {
+			String tag = entry.getValue();
+			if (tag.equalsIgnoreCase("em") || tag.equalsIgnoreCase("b")) {
+				words.put(entry.getKey(), tag);
+			}
+		}
+		if (words.isEmpty() || root == null) {
+			return;
+		}
+		WordMatcher matcher = new WordMatcher(words);
+		elements();
+		ArrayList<TagNode> made = new ArrayList<TagNode>();
+		if (pool == null) {
+			addTags(null, matcher, made);
+		} else {
+			ArrayList<TagNode> subtrees = new ArrayList<TagNode>(), texts = new ArrayList<TagNode>();
+			int[] sizes = split(subtrees, texts);
+			if (!subtrees.isEmpty()) {
+				for (int i=1; i < sizes.length; i++) {
+					sizes[i] += sizes[i-1];
 				}
-				ptr = ptr.sibling;
+				AddTagsTask task = new AddTagsTask(subtrees, sizes, 0, subtrees.size(), matcher);
+				pool.invoke(task);
+				made = task.made;
 			}
+			for (TagNode text : texts) {
+				int count = matcher.find(text.tag);
+				if (count > 0) {
+					splitText(text, matcher, count, made);
+				}
+			}
+		}
+		for (TagNode node : made) {
+			index(node);
 		}
 	}
-	private void cleanTree(TagNode node) {
-		if(node == null) return;
-		if(node.firstChild != null) cleanTree(node.firstChild);
-		if(node.sibling != null) cleanTree(node.sibling);
-		try {
-			if(node.tag.equals(node.firstChild.tag)) {
-				node.firstChild = new TagNode(node.firstChild.firstChild.tag, null, null);
-			}	
-		} catch(NullPointerException e) {
-			return;
+	
+	/**
+	 * Number of nodes below which a subtree is left whole to one task of the
+	 * parallel addTags, and about the number of nodes each task takes
+	 */
+	public static final int PARALLEL_THRESHOLD = 1 << 12;
+	
+	/**
+	 * Adds tags to the text below a node.
+	 * 
+	 * @param top Node whose descendants are tagged, or null for the whole tree
+	 * @param matcher Matcher for the words
+	 * @param made Filled with the new elements
+	 */
+	private void addTags(TagNode top, WordMatcher matcher, ArrayList<TagNode> made) {
+		TagNode node = top == null ? root : top.firstChild;
+		while (node != null) {
+			if (node.firstChild != null) {
+				node = node.firstChild;
+				continue;
+			}
+			if (!node.element) {
+				int count = matcher.find(node.tag);
+				if (count > 0) {
+					node = splitText(node, matcher, count, made);
+				}
+			}
+			while (node != top && node.sibling == null) {
+				node = node.parent;
+			}
+			node = node == top ? null : node.sibling;
 		}
 	}
 	
-	private TagNode buildSubTree2(TagNode node, String word, String tag) {
-		TagNode subtree = null;
-		TagNode lastCreated = null;
-		while(node != null) {
-			if(node.tag.equalsIgnoreCase(word)) {
-				if(subtree == null) {
-					subtree = new TagNode(tag, new TagNode(node.tag, node.firstChild, null), null);
-					lastCreated = subtree;
-				} else {
-					lastCreated.sibling = new TagNode(tag, new TagNode(node.tag, node.firstChild, null), null);
-					lastCreated = lastCreated.sibling;
+	/**
+	 * Cuts the tree into the largest subtrees with fewer than PARALLEL_THRESHOLD
+	 * nodes, in one pass that counts the nodes of every subtree on the way back
+	 * up. The finished children of each open node are held until the node is
+	 * finished: if it is small too they are dropped, as it takes them in,
+	 * otherwise they are kept.
+	 * 
+	 * @param subtrees Filled with the roots of the subtrees that have children, in document order
+	 * @param texts Filled with the text nodes that are in none of the subtrees
+	 * @return Number of nodes of each of the subtrees
+	 */
+	private int[] split(ArrayList<TagNode> subtrees, ArrayList<TagNode> texts) {
+		ArrayList<TagNode> held = new ArrayList<TagNode>();
+		int[] heldSize = new int[16], sizes = new int[16];
+		// per open node, from the top level at 0: nodes so far, and where its children start in held
+		int[] size = new int[16], mark = new int[16];
+		int depth = 0;
+		TagNode node = root;
+		while (node != null) {
+			if (node.firstChild != null) {
+				if (++depth == size.length) {
+					size = Arrays.copyOf(size, depth * 2);
+					mark = Arrays.copyOf(mark, depth * 2);
 				}
-			} else {
-				if(subtree == null) {
-					subtree = new TagNode(node.tag, node.firstChild, null);
-					lastCreated = subtree;
+				size[depth] = 1;
+				mark[depth] = held.size();
+				node = node.firstChild;
+				continue;
+			}
+			size[depth]++;
+			heldSize = hold(held, heldSize, node, 1);
+			while (node.sibling == null && depth > 0) {
+				node = node.parent;
+				int s = size[depth], m = mark[depth--];
+				if (s < PARALLEL_THRESHOLD) {
+					truncate(held, m);
+					heldSize = hold(held, heldSize, node, s);
 				} else {
-					lastCreated.sibling = new TagNode(node.tag, node.firstChild, null);
-					lastCreated = lastCreated.sibling;
+					sizes = keep(held, heldSize, m, subtrees, sizes, texts);
 				}
+				size[depth] += s;
 			}
 			node = node.sibling;
 		}
-		print(subtree, 3);
-		System.out.println("\n \n \n");
-		return subtree;
+		sizes = keep(held, heldSize, 0, subtrees, sizes, texts);
+		return Arrays.copyOf(sizes, subtrees.size());
+	}
+	
+	private static int[] hold(ArrayList<TagNode> held, int[] heldSize, TagNode node, int size) {
+		if (held.size() == heldSize.length) {
+			heldSize = Arrays.copyOf(heldSize, held.size() * 2);
+		}
+		heldSize[held.size()] = size;
+		held.add(node);
+		return heldSize;
+	}
+	
+	private static void truncate(ArrayList<TagNode> list, int size) {
+		list.subList(size, list.size()).clear();
+	}
+	
+	/**
+	 * Keeps the held children of a large node: those with children as subtrees,
+	 * and text as text to be done on its own.
+	 * 
+	 * @return Sizes of the subtrees, possibly reallocated
+	 */
+	private int[] keep(ArrayList<TagNode> held, int[] heldSize, int from,
+			ArrayList<TagNode> subtrees, int[] sizes, ArrayList<TagNode> texts) {
+		for (int i=from; i < held.size(); i++) {
+			TagNode node = held.get(i);
+			if (node.firstChild != null) {
+				if (subtrees.size() == sizes.length) {
+					sizes = Arrays.copyOf(sizes, sizes.length * 2);
+				}
+				sizes[subtrees.size()] = heldSize[i];
+				subtrees.add(node);
+			} else if (!node.element) {
+				texts.add(node);
+			}
+		}
+		truncate(held, from);
+		return sizes;
+	}
+	
+	/**
+	 * Adds tags to the text in a run of independent subtrees, forking halves of
+	 * the run, by node count, while it is larger than PARALLEL_THRESHOLD.
+	 */
+	private class AddTagsTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		
+		private ArrayList<TagNode> subtrees;
+		
+		/**
+		 * Running totals of the subtree sizes
+		 */
+		private int[] ends;
+		
+		private int from, to;
+		
+		private WordMatcher matcher;
+		
+		/**
+		 * New elements, once done
+		 */
+		ArrayList<TagNode> made = new ArrayList<TagNode>();
+		
+		AddTagsTask(ArrayList<TagNode> subtrees, int[] ends, int from, int to, WordMatcher matcher) {
+			this.subtrees = subtrees;
+			this.ends = ends;
+			this.from = from;
+			this.to = to;
+			this.matcher = matcher;
+		}
+		
+		protected void compute() {
+			int base = from == 0 ? 0 : ends[from-1];
+			if (to - from > 1 && ends[to-1] - base > PARALLEL_THRESHOLD) {
+				// first subtree that ends past the middle, kept off either end
+				int mid = Arrays.binarySearch(ends, from, to, base + (ends[to-1] - base) / 2);
+				mid = Math.max(from + 1, Math.min(to - 1, mid < 0 ? -mid - 1 : mid));
+				AddTagsTask left = new AddTagsTask(subtrees, ends, from, mid, matcher);
+				AddTagsTask right = new AddTagsTask(subtrees, ends, mid, to, matcher);
+				invokeAll(left, right);
+				made = left.made;
+				made.addAll(right.made);
+				return;
+			}
+			WordMatcher own = new WordMatcher(matcher);
+			for (int i=from; i < to; i++) {
+				addTags(subtrees.get(i), own, made);
+			}
+		}
+	}
+	
+	/**
+	 * Replaces a text node by the pieces it splits into at the matches just
+	 * found in it: text between matches, and each match under a new element.
+	 * 
+	 * @param text Text node
+	 * @param matcher Matcher, holding the matches in the text
+	 * @param count Number of matches
+	 * @param made Filled with the new elements, which are left for the caller to index
+	 * @return Last node put in place of the text node, or the text node itself if it is left alone
+	 */
+	private TagNode splitText(TagNode text, WordMatcher matcher, int count, ArrayList<TagNode> made) {
+		String s = text.tag;
+		TagNode parent = text.parent;
+		if (count == 1 && matcher.start(0) == 0 && matcher.end(0) == s.length() && parent != null
+				&& text.prevSibling == null && text.sibling == null && parent.tag.equals(matcher.tag(0))) {
+			return text;
+		}
+		TagNode first = null, last = null;
+		int pos = 0;
+		for (int i=0; i <= count; i++) {
+			int start = i < count ? matcher.start(i) : s.length();
+			if (start > pos) {
+				TagNode piece = new TagNode(s.substring(pos, start), null, null);
+				last = link(last, piece, parent);
+				if (first == null) {
+					first = piece;
+				}
+			}
+			if (i < count) {
+				TagNode word = new TagNode(s.substring(start, matcher.end(i)), null, null);
+				TagNode tagged = new TagNode(matcher.tag(i), word, null);
+				word.parent = tagged;
+				made.add(tagged);
+				last = link(last, tagged, parent);
+				if (first == null) {
+					first = tagged;
+				}
+				pos = matcher.end(i);
+			}
+		}
+		splice(text, first, last);
+		return last;
+	}
+	
+	/**
+	 * Links a node after the last of a chain of siblings.
+	 * 
+	 * @return The node, now last in the chain
+	 */
+	private static TagNode link(TagNode last, TagNode node, TagNode parent) {
+		node.parent = parent;
+		node.prevSibling = last;
+		if (last != null) {
+			last.sibling = node;
+		}
+		return node;
 	}
 	
-	private String removeBrackets(String str) {
-		return str.substring(1, str.length() - 1);
+	/**
+	 * Links every node to its parent and previous sibling, and indexes the
+	 * elements, in one pass over a tree that was not built by {@link #build()}.
+	 * Nodes marked as elements, and nodes with children, are taken for elements.
+	 */
+	private void reindex() {
+		index = new HashMap<String,Set<TagNode>>();
+		TagNode prev = null;
+		for (TagNode ptr=root; ptr != null; ptr=ptr.sibling) {
+			ptr.parent = null;
+			ptr.prevSibling = prev;
+			prev = ptr;
+		}
+		walk(new TagVisitor() {
+			public boolean enter(TreeWalker walker, TagNode node) {
+				TagNode prev = null;
+				for (TagNode ptr=node.firstChild; ptr != null; ptr=ptr.sibling) {
+					ptr.parent = node;
+					ptr.prevSibling = prev;
+					prev = ptr;
+				}
+				if (node.element || node.firstChild != null) {
+					node.element = true;
+					index(node);
+				}
+				return true;
+			}
+		});
 	}
 	
 	/**
@@ -301,26 +912,175 @@ public class Tree {
 	 * @return HTML string, including new lines. 
 	 */
 	public String getHTML() {
-		StringBuilder sb = new StringBuilder();
-		getHTML(root, sb);
-		return sb.toString();
+		StringWriter out = new StringWriter();
+		try {
+			writeHTML(out);
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return out.toString();
 	}
 	
-	private void getHTML(TagNode root, StringBuilder sb) {
-		for (TagNode ptr=root; ptr != null;ptr=ptr.sibling) {
-			if (ptr.firstChild == null) {
-				sb.append(ptr.tag);
-				sb.append("\n");
-			} else {
-				sb.append("<");
-				sb.append(ptr.tag);
-				sb.append(">\n");
-				getHTML(ptr.firstChild, sb);
-				sb.append("</");
-				sb.append(ptr.tag);
-				sb.append(">\n");	
+	/**
+	 * Writes the HTML represented by this DOM tree, as returned by getHTML, to a
+	 * writer. The output goes through a fixed size buffer as the tree is walked,
+	 * so it starts before the walk is done and the whole document is never held
+	 * in memory. The writer is flushed but not closed.
+	 * 
+	 * @param out Writer
+	 * @throws IOException If the writer fails
+	 */
+	public void writeHTML(final Writer out)
+	throws IOException {
+		writeHTML(new Sink() {
+			private char[] buf = new char[BUFFER_SIZE];
+			private int pos;
+			
+			void write(String s)
+			throws IOException {
+				for (int from=0, n=s.length(); from < n; ) {
+					if (pos == buf.length) {
+						flush();
+					}
+					int count = Math.min(n - from, buf.length - pos);
+					s.getChars(from, from + count, buf, pos);
+					pos += count;
+					from += count;
+				}
 			}
+			
+			void flush()
+			throws IOException {
+				out.write(buf, 0, pos);
+				pos = 0;
+			}
+		});
+		out.flush();
+	}
+	
+	/**
+	 * Writes the HTML represented by this DOM tree, as returned by getHTML, to a
+	 * channel in UTF-8. The characters are encoded straight into a fixed size
+	 * byte buffer as the tree is walked, with no intermediate strings. The
+	 * channel is not closed.
+	 * 
+	 * @param out Channel
+	 * @throws IOException If the channel fails
+	 */
+	public void writeHTML(final WritableByteChannel out)
+	throws IOException {
+		writeHTML(new Sink() {
+			private ByteBuffer buf = ByteBuffer.allocate(BUFFER_SIZE);
+			private byte[] bytes = buf.array();
+			private int pos;
+			
+			void write(String s)
+			throws IOException {
+				for (int i=0, n=s.length(); i < n; i++) {
+					if (pos > bytes.length - 4) {
+						flush();
+					}
+					char c = s.charAt(i);
+					if (c < 0x80) {
+						bytes[pos++] = (byte)c;
+					} else if (c < 0x800) {
+						bytes[pos++] = (byte)(0xc0 | c >> 6);
+						bytes[pos++] = (byte)(0x80 | c & 0x3f);
+					} else if (Character.isHighSurrogate(c) && i+1 < n && Character.isLowSurrogate(s.charAt(i+1))) {
+						int cp = Character.toCodePoint(c, s.charAt(++i));
+						bytes[pos++] = (byte)(0xf0 | cp >> 18);
+						bytes[pos++] = (byte)(0x80 | cp >> 12 & 0x3f);
+						bytes[pos++] = (byte)(0x80 | cp >> 6 & 0x3f);
+						bytes[pos++] = (byte)(0x80 | cp & 0x3f);
+					} else if (Character.isSurrogate(c)) {
+						// unpaired, so not encodable; replaced as String.getBytes does
+						bytes[pos++] = '?';
+					} else {
+						bytes[pos++] = (byte)(0xe0 | c >> 12);
+						bytes[pos++] = (byte)(0x80 | c >> 6 & 0x3f);
+						bytes[pos++] = (byte)(0x80 | c & 0x3f);
+					}
+				}
+			}
+			
+			void flush()
+			throws IOException {
+				buf.clear();
+				buf.limit(pos);
+				while (buf.hasRemaining()) {
+					out.write(buf);
+				}
+				pos = 0;
+			}
+		});
+	}
+	
+	/**
+	 * Size of the output buffer of writeHTML, in chars or bytes
+	 */
+	private static final int BUFFER_SIZE = 1 << 13;
+	
+	/**
+	 * Buffered output of writeHTML
+	 */
+	private static abstract class Sink {
+		abstract void write(String s)
+		throws IOException;
+		
+		abstract void flush()
+		throws IOException;
+	}
+	
+	/**
+	 * Walks the tree, writing each tag and text on a line of its own. A node
+	 * with children is written as an element. An element with no children is
+	 * written as its tag, followed by its closing tag unless it is a void
+	 * element such as br. Opening tags have their attributes, closing tags
+	 * just the tag name.
+	 */
+	private void writeHTML(final Sink sink)
+	throws IOException {
+		try {
+			walk(new TagVisitor() {
+				public boolean enter(TreeWalker walker, TagNode node) {
+					try {
+						if (!node.element && node.firstChild == null) {
+							sink.write(node.tag);
+							sink.write("\n");
+						} else {
+							sink.write("<");
+							sink.write(node.tag);
+							if (node.attributes != null) {
+								sink.write(" ");
+								sink.write(node.attributes);
+							}
+							sink.write(">\n");
+							if (node.firstChild == null && !HtmlTokenizer.isVoid(node.tag)) {
+								sink.write("</");
+								sink.write(node.tag);
+								sink.write(">\n");
+							}
+						}
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+					return true;
+				}
+				
+				public void leave(TreeWalker walker, TagNode node) {
+					try {
+						sink.write("</");
+						sink.write(node.tag);
+						sink.write(">\n");
+					} catch (IOException e) {
+						throw new UncheckedIOException(e);
+					}
+				}
+			});
+		} catch (UncheckedIOException e) {
+			throw e.getCause();
 		}
+		sink.flush();
 	}
 	
 	/**
@@ -331,20 +1091,23 @@ public class Tree {
 		print(root, 1);
 	}
 	
-	private void print(TagNode root, int level) {
-		for (TagNode ptr=root; ptr != null;ptr=ptr.sibling) {
-			for (int i=0; i < level-1; i++) {
-				System.out.print("      ");
-			};
-			if (root != this.root) {
-				System.out.print("|----");
-			} else {
-				System.out.print("     ");
-			}
-			System.out.println(ptr.tag);
-			if (ptr.firstChild != null) {
-				print(ptr.firstChild, level+1);
-			}
+	private void print(TagNode first, final int level) {
+		if (first == null) {
+			return;
 		}
+		final boolean top = first == this.root;
+		new TreeWalker().walk(new TagNode(null, first, null), new TagVisitor() {
+			public boolean enter(TreeWalker walker, TagNode node) {
+				int depth = level + walker.depth() - 1;
+				StringBuilder line = new StringBuilder();
+				for (int i=0; i < depth-1; i++) {
+					line.append("      ");
+				}
+				line.append(top && walker.depth() == 1 ? "     " : "|----");
+				line.append(node.tag);
+				System.out.println(line);
+				return true;
+			}
+		});
 	}
-}
\ No newline at end of file
+}
@@ -0,0 +1,108 @@
+package structures;
+
+/**
+ * One of the operations that change a {@link Tree}: replaceTag, removeTag,
+ * boldRow or addTag, with its arguments. A list of these can be applied to a
+ * tree in one go with {@link Tree#apply(java.util.List)}.
+ */
+public class TreeMutation {
+
+	/**
+	 * Operation types
+	 */
+	public static final int REPLACE_TAG=0, REMOVE_TAG=1, BOLD_ROW=2, ADD_TAG=3;
+
+	/**
+	 * Operation type
+	 */
+	final int type;
+
+	/**
+	 * Tag or word operated on: the old tag, the tag to remove, or the word to tag
+	 */
+	final String target;
+
+	/**
+	 * New tag for replaceTag, or tag to add for addTag
+	 */
+	final String tag;
+
+	/**
+	 * Row for boldRow
+	 */
+	final int row;
+
+	private TreeMutation(int type, String target, String tag, int row) {
+		this.type = type;
+		this.target = target;
+		this.tag = tag;
+		this.row = row;
+	}
+
+	/**
+	 * Makes a mutation that does {@link Tree#replaceTag(String, String)}.
+	 *
+	 * @param oldTag Old tag
+	 * @param newTag Replacement tag
+	 * @return Mutation
+	 */
+	public static TreeMutation replaceTag(String oldTag, String newTag) {
+		return new TreeMutation(REPLACE_TAG, oldTag, newTag, 0);
+	}
+
+	/**
+	 * Makes a mutation that does {@link Tree#removeTag(String)}.
+	 *
+	 * @param tag Tag to be removed
+	 * @return Mutation
+	 */
+	public static TreeMutation removeTag(String tag) {
+		return new TreeMutation(REMOVE_TAG, tag, null, 0);
+	}
+
+	/**
+	 * Makes a mutation that does {@link Tree#boldRow(int)}.
+	 *
+	 * @param row Row to bold, first row is numbered 1 (not 0).
+	 * @return Mutation
+	 */
+	public static TreeMutation boldRow(int row) {
+		return new TreeMutation(BOLD_ROW, null, null, row);
+	}
+
+	/**
+	 * Makes a mutation that does {@link Tree#addTag(String, String)}.
+	 *
+	 * @param word Word around which tag is to be added
+	 * @param tag Tag to be added
+	 * @return Mutation
+	 */
+	public static TreeMutation addTag(String word, String tag) {
+		return new TreeMutation(ADD_TAG, word, tag, 0);
+	}
+
+	/**
+	 * Returns the type of this mutation.
+	 *
+	 * @return REPLACE_TAG, REMOVE_TAG, BOLD_ROW or ADD_TAG
+	 */
+	public int getType() {
+		return type;
+	}
+
+	/* (non-Javadoc)
+	 * @see java.lang.Object#toString()
+	 */
+	public String toString() {
+		switch (type) {
+		case REPLACE_TAG:
+			return "replaceTag(" + target + ", " + tag + ")";
+		case REMOVE_TAG:
+			return "removeTag(" + target + ")";
+		case BOLD_ROW:
+			return "boldRow(" + row + ")";
+		default:
+			return "addTag(" + target + ", " + tag + ")";
+		}
+	}
+}
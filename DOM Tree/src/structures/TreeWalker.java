@@ -0,0 +1,75 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * Visits the nodes of a DOM tree in document order without recursion. The
+ * path from the top of the walk down to the current node is kept in an
+ * explicit array stack, so the walk uses no call stack however deep or wide
+ * the tree, and moving on to a sibling costs nothing.
+ */
+public class TreeWalker {
+
+	/**
+	 * Path from the top of the walk to the parent of the current node
+	 */
+	private TagNode[] path = new TagNode[32];
+
+	/**
+	 * Index in path of the current node's parent
+	 */
+	private int depth;
+
+	/**
+	 * Visits every node below top - but not top itself - in document order.
+	 * To walk a whole tree, pass a node whose first child is the tree's root.
+	 * 
+	 * @param top Node whose descendants are visited
+	 * @param visitor Visitor
+	 */
+	public void walk(TagNode top, TagVisitor visitor) {
+		depth = 0;
+		path[0] = top;
+		TagNode node = top.firstChild;
+		while (true) {
+			while (node == null) {
+				if (depth == 0) {
+					return;
+				}
+				TagNode done = path[depth];
+				depth--;
+				visitor.leave(this, done);
+				node = done.sibling;
+			}
+			if (visitor.enter(this, node) && node.firstChild != null) {
+				if (++depth == path.length) {
+					path = Arrays.copyOf(path, depth * 2);
+				}
+				path[depth] = node;
+				node = node.firstChild;
+			} else {
+				node = node.sibling;
+			}
+		}
+	}
+
+	/**
+	 * Returns the parent of the current node. At the top level of the walk this
+	 * is the top node passed to walk.
+	 * 
+	 * @return Parent node
+	 */
+	public TagNode parent() {
+		return path[depth];
+	}
+
+	/**
+	 * Returns the depth of the current node: 1 for a child of the top node.
+	 * In leave, this is the depth of the node being left.
+	 * 
+	 * @return Depth of current node
+	 */
+	public int depth() {
+		return depth + 1;
+	}
+}
@@ -0,0 +1,304 @@
+package structures;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Finds the whole-word occurrences of many words in a text at once, ignoring
+ * case, with an Aho-Corasick automaton: the words are put in a trie, and each
+ * state gets a failure link to the longest proper suffix of its string that
+ * is also in the trie. A text is then read once, a character at a time,
+ * whatever the number of words.
+ *
+ * A word matches where it has white space or the start of the text before it,
+ * and white space or the end of the text after it. It may also be followed by
+ * one of the punctuation marks . , ? ! : ; which then counts as part of the
+ * match. Where matches overlap, which can only happen for words that hold
+ * spaces, the one that starts first wins, and then the longest.
+ */
+public class WordMatcher {
+
+	/**
+	 * Marks that may follow a word and be matched with it
+	 */
+	private static final String PUNCTUATION = ".,?!:;";
+
+	/**
+	 * Transitions, in an open-addressing table keyed by state and character
+	 */
+	private long[] keys = new long[64];
+	private int[] targets = new int[64];
+	private int transitions;
+
+	/**
+	 * Per state: character on the edge into it, first child and next sibling
+	 * in the trie, failure link, word that ends there or -1, and the nearest
+	 * state on the failure chain where a word ends, or -1
+	 */
+	private char[] label = new char[16];
+	private int[] child = new int[16], next = new int[16], fail = new int[16];
+	private int[] word = new int[16], output = new int[16];
+	private int states = 1;
+
+	/**
+	 * Per word: length and tag
+	 */
+	private int[] lengths;
+	private String[] tags;
+
+	/**
+	 * Longest match starting at each position of the last text, by end and word
+	 */
+	private int[] bestEnd = new int[0], bestWord = new int[0];
+
+	/**
+	 * Matches found in the last text
+	 */
+	private int[] start = new int[16], end = new int[16];
+	private String[] matchTag = new String[16];
+
+	/**
+	 * Compiles words into an automaton.
+	 *
+	 * @param wordToTag Words to find, each with the tag to report for it; empty words are ignored
+	 */
+	public WordMatcher(Map<String,String> wordToTag) {
+		Arrays.fill(keys, -1);
+		lengths = new int[wordToTag.size()];
+		tags = new String[wordToTag.size()];
+		child[0] = next[0] = word[0] = output[0] = -1;
+		int w = 0;
+		for (Map.Entry<String,String> entry : wordToTag.entrySet()) {
+			String s = entry.getKey();
+			if (s.length() == 0) {
+				continue;
+			}
+			int state = 0;
+			for (int i=0; i < s.length(); i++) {
+				char c = Character.toLowerCase(s.charAt(i));
+				int to = step(state, c);
+				if (to < 0) {
+					to = addState(state, c);
+				}
+				state = to;
+			}
+			lengths[w] = s.length();
+			tags[w] = entry.getValue();
+			word[state] = w++;
+		}
+		link();
+	}
+
+	/**
+	 * Makes a matcher that shares the automaton of another, which is not
+	 * changed once built, but has buffers of its own, so that the two can be
+	 * used on different threads.
+	 *
+	 * @param other Matcher to share the automaton of
+	 */
+	public WordMatcher(WordMatcher other) {
+		keys = other.keys;
+		targets = other.targets;
+		transitions = other.transitions;
+		label = other.label;
+		child = other.child;
+		next = other.next;
+		fail = other.fail;
+		word = other.word;
+		output = other.output;
+		states = other.states;
+		lengths = other.lengths;
+		tags = other.tags;
+	}
+
+	/**
+	 * Finds the matches in a text. They are then available, in order, through
+	 * start(i), end(i) and tag(i).
+	 *
+	 * @param text Text to search
+	 * @return Number of matches
+	 */
+	public int find(String text) {
+		int n = text.length();
+		if (bestEnd.length < n) {
+			bestEnd = new int[Math.max(n, bestEnd.length * 2)];
+			bestWord = new int[bestEnd.length];
+			Arrays.fill(bestEnd, -1);
+		}
+		boolean found = false;
+		int state = 0;
+		for (int i=0; i < n; i++) {
+			char c = Character.toLowerCase(text.charAt(i));
+			int to;
+			while ((to = step(state, c)) < 0 && state != 0) {
+				state = fail[state];
+			}
+			state = to < 0 ? 0 : to;
+			for (int s = word[state] >= 0 ? state : output[state]; s >= 0; s = output[s]) {
+				int w = word[s], from = i + 1 - lengths[w], until = i + 1;
+				if (from > 0 && text.charAt(from-1) > ' ') {
+					continue;
+				}
+				if (until < n && text.charAt(until) > ' ') {
+					if (PUNCTUATION.indexOf(text.charAt(until)) < 0
+							|| (until + 1 < n && text.charAt(until+1) > ' ')) {
+						continue;
+					}
+					until++;
+				}
+				if (until > bestEnd[from]) {
+					bestEnd[from] = until;
+					bestWord[from] = w;
+					found = true;
+				}
+			}
+		}
+		if (!found) {
+			return 0;
+		}
+		int count = 0;
+		for (int from=0, pos=0; from < n; from++) {
+			if (bestEnd[from] < 0) {
+				continue;
+			}
+			if (from >= pos) {
+				if (count == start.length) {
+					start = Arrays.copyOf(start, count * 2);
+					end = Arrays.copyOf(end, count * 2);
+					matchTag = Arrays.copyOf(matchTag, count * 2);
+				}
+				start[count] = from;
+				end[count] = pos = bestEnd[from];
+				matchTag[count++] = tags[bestWord[from]];
+			}
+			bestEnd[from] = -1;
+		}
+		return count;
+	}
+
+	/**
+	 * Returns where a match starts in the last text.
+	 *
+	 * @param i Match number, from 0
+	 * @return Index of the first character of the match
+	 */
+	public int start(int i) {
+		return start[i];
+	}
+
+	/**
+	 * Returns where a match ends in the last text.
+	 *
+	 * @param i Match number, from 0
+	 * @return Index after the last character of the match, including any punctuation
+	 */
+	public int end(int i) {
+		return end[i];
+	}
+
+	/**
+	 * Returns the tag of the word of a match.
+	 *
+	 * @param i Match number, from 0
+	 * @return Tag
+	 */
+	public String tag(int i) {
+		return matchTag[i];
+	}
+
+	/**
+	 * Sets the failure and output links, visiting the trie breadth first so
+	 * that the links of shallower states are set before they are needed.
+	 */
+	private void link() {
+		int[] queue = new int[states];
+		int head = 0, tail = 0;
+		for (int c=child[0]; c >= 0; c=next[c]) {
+			fail[c] = 0;
+			output[c] = -1;
+			queue[tail++] = c;
+		}
+		while (head < tail) {
+			int state = queue[head++];
+			for (int c=child[state]; c >= 0; c=next[c]) {
+				int f = fail[state], to;
+				while ((to = step(f, label[c])) < 0 && f != 0) {
+					f = fail[f];
+				}
+				fail[c] = to < 0 ? 0 : to;
+				output[c] = word[fail[c]] >= 0 ? fail[c] : output[fail[c]];
+				queue[tail++] = c;
+			}
+		}
+	}
+
+	private int addState(int from, char c) {
+		if (states == label.length) {
+			int size = states * 2;
+			label = Arrays.copyOf(label, size);
+			child = Arrays.copyOf(child, size);
+			next = Arrays.copyOf(next, size);
+			fail = Arrays.copyOf(fail, size);
+			word = Arrays.copyOf(word, size);
+			output = Arrays.copyOf(output, size);
+		}
+		int s = states++;
+		label[s] = c;
+		child[s] = word[s] = -1;
+		next[s] = child[from];
+		child[from] = s;
+		if (2 * (transitions + 1) > keys.length) {
+			rehash();
+		}
+		put(key(from, c), s);
+		return s;
+	}
+
+	private static long key(int state, char c) {
+		return ((long)state << 16) | c;
+	}
+
+	private static int slot(long key, int mask) {
+		long h = key * 0x9E3779B97F4A7C15L;
+		return (int)(h >>> 32) & mask;
+	}
+
+	/**
+	 * Returns the state reached from a state on a character, or -1 if there is
+	 * no such transition.
+	 */
+	private int step(int state, char c) {
+		long k = key(state, c);
+		int mask = keys.length - 1;
+		for (int s=slot(k, mask); keys[s] != -1; s=(s + 1) & mask) {
+			if (keys[s] == k) {
+				return targets[s];
+			}
+		}
+		return -1;
+	}
+
+	private void put(long k, int target) {
+		int mask = keys.length - 1, s = slot(k, mask);
+		while (keys[s] != -1) {
+			s = (s + 1) & mask;
+		}
+		keys[s] = k;
+		targets[s] = target;
+		transitions++;
+	}
+
+	private void rehash() {
+		long[] oldKeys = keys;
+		int[] oldTargets = targets;
+		keys = new long[oldKeys.length * 2];
+		targets = new int[keys.length];
+		Arrays.fill(keys, -1);
+		transitions = 0;
+		for (int s=0; s < oldKeys.length; s++) {
+			if (oldKeys[s] != -1) {
+				put(oldKeys[s], oldTargets[s]);
+			}
+		}
+	}
+}
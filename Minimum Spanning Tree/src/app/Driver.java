@@ -9,10 +9,14 @@ import java.util.ArrayList;
 
 public class Driver {
 
+    /**
+     * Runs the partial tree list algorithm with tracing on a graph file, given
+     * as the first argument, or graph3.txt by default.
+     */
     public static void main(String[] args) {
         Graph graph = null;
         try {
-            graph = new Graph("graph3.txt");
+            graph = new Graph(args.length > 0 ? args[0] : "graph3.txt");
         }
         catch (IOException e) {
             e.printStackTrace();
@@ -26,7 +30,7 @@ public class Driver {
         System.out.println("\n\n\n");
         
         System.out.println("Execution: ");
-        ArrayList<Arc> arcList = PartialTreeList.execute(partialTreeList);
+        ArrayList<Arc> arcList = PartialTreeList.execute(partialTreeList, new PrintingMstListener());
         System.out.println("Output: ");
         System.out.println(arcList);
         
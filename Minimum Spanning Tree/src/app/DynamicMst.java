@@ -0,0 +1,676 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+import structures.Arc;
+import structures.DecrementalMsf;
+import structures.EdgeList;
+import structures.EdgeSorter;
+import structures.Graph;
+import structures.LinkCutTree;
+import structures.UnionFind;
+
+/**
+ * Keeps a minimum spanning forest of a graph up to date as edges are inserted,
+ * deleted and reweighted, without recomputing it from scratch.
+ * 
+ * The forest is held in a link-cut tree in which every tree edge is a node of
+ * its own, valued by its (weight, id) key. Inserting an edge (u, v, w) either
+ * links two trees, or finds the heaviest edge on the tree path from u to v
+ * and, if that edge is heavier than the new one, swaps it out.
+ * 
+ * Replacements for deleted tree edges are found with the reduction of Holm,
+ * de Lichtenberg and Thorup from the fully dynamic problem to the decremental
+ * one. The edges are split among parts, part j holding at most 2^j of them
+ * like the digits of a binary counter, and each part keeps a
+ * {@link DecrementalMsf} of its edges together with the paths of the forest
+ * that join their ends, each path squeezed into a single edge that stands for
+ * something just heavier than the path. Every minimum spanning forest edge is
+ * then in the minimum spanning forest of its part, so when a tree edge is
+ * deleted, the lightest edge that reconnects the halves is among the
+ * replacements the parts find for it and for the paths through it. The edges
+ * the parts find but the forest does not take are moved, along with new
+ * edges and edges swapped out of the forest, into a part rebuilt from them
+ * and all the edges of the parts below it. Every update then takes
+ * O(log^4 n) amortized time, n being the number of vertices, against the
+ * O(m log n) of scanning all m edges for a replacement.
+ */
+public class DynamicMst {
+
+	/**
+	 * Edge states
+	 */
+	private static final byte DELETED = 0, NON_TREE = 1, TREE = 2;
+
+	/**
+	 * Owners of part slots that hold no edge of the graph: a path of the
+	 * forest or a moved edge, and a deleted slot
+	 */
+	private static final int SUPER = -1, NONE = -2;
+
+	/**
+	 * One digit of the binary counter of parts.
+	 */
+	private static class Part {
+
+		/**
+		 * Number of the build that made the part, which part slot labels start with
+		 */
+		int stamp;
+
+		/**
+		 * Minimum spanning forest of the part's slots
+		 */
+		DecrementalMsf msf;
+
+		/**
+		 * Edge id that each slot holds, or {@link #SUPER} or {@link #NONE}
+		 */
+		int[] owner;
+
+		/**
+		 * Number of slots that hold edge ids
+		 */
+		int edges;
+
+		Part(int stamp, DecrementalMsf msf, int[] owner, int edges) {
+			this.stamp = stamp;
+			this.msf = msf;
+			this.owner = owner;
+			this.edges = edges;
+		}
+	}
+
+	/**
+	 * Graph whose vertices the edges join
+	 */
+	private Graph graph;
+
+	/**
+	 * Number of vertices
+	 */
+	private int n;
+
+	/**
+	 * Ends, weight and state of every edge, by edge id; deleted ids are not reused
+	 */
+	private int[] src, dst, weight;
+	private byte[] state;
+	private int edgeCount;
+
+	/**
+	 * Link-cut tree node of each tree edge, and edge id of each edge node
+	 */
+	private int[] edgeNode, nodeEdge;
+
+	/**
+	 * Unused edge nodes of the link-cut tree
+	 */
+	private int[] freeNodes;
+	private int freeCount;
+
+	/**
+	 * The forest: nodes 0..n-1 are vertices, nodes n..2n-2 are tree edges. In
+	 * label layer j, the nodes of each path that is a slot of part j are
+	 * labelled with the part's stamp and the slot.
+	 */
+	private LinkCutTree forest;
+
+	/**
+	 * The parts, and the number of the last build
+	 */
+	private Part[] parts;
+	private int stamps;
+
+	/**
+	 * Part and slot of every edge that is not a self-loop; part -1 while the
+	 * edge is being moved or after it is deleted
+	 */
+	private int[] home, homeSlot;
+
+	/**
+	 * Labels of the part slots standing for paths or moved edges that an edge
+	 * is part of, other than those on its link-cut tree node, by edge id
+	 */
+	private long[][] extra;
+	private int[] extraCount;
+
+	/**
+	 * Total weight of the tree edges
+	 */
+	private long totalWeight;
+
+	/**
+	 * Scratch lists of replacement candidates and of edges to move, and build
+	 * numbers and local vertex numbers of the vertices, for building parts
+	 */
+	private int[] candidates, batch;
+	private int[] vertexStamp, localVertex;
+
+	/**
+	 * Initializes the structure with the edges of a graph, computing their
+	 * minimum spanning forest with Kruskal's algorithm. Edge ids 0, 1, ... are
+	 * given to the graph's edges in {@link EdgeList#fromGraph(Graph)} order.
+	 *
+	 * @param graph Graph
+	 */
+	public DynamicMst(Graph graph) {
+		this.graph = graph;
+		n = graph.vertices.length;
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int cap = Math.max(edges.size(), 16);
+		src = new int[cap];
+		dst = new int[cap];
+		weight = new int[cap];
+		state = new byte[cap];
+		edgeNode = new int[cap];
+		home = new int[cap];
+		homeSlot = new int[cap];
+		extra = new long[cap][];
+		extraCount = new int[cap];
+		nodeEdge = new int[Math.max(n-1, 0)];
+		freeNodes = new int[Math.max(n-1, 0)];
+		Arrays.fill(nodeEdge, -1);
+		for (int k=nodeEdge.length-1; k >= 0; k--) {
+			freeNodes[freeCount++] = n + k;
+		}
+		forest = new LinkCutTree(n + nodeEdge.length);
+		parts = new Part[0];
+		candidates = new int[16];
+		batch = new int[16];
+		vertexStamp = new int[n];
+		localVertex = new int[n];
+
+		UnionFind components = new UnionFind(n);
+		int[] sorted = EdgeSorter.RADIX.sort(edges);
+		for (int e : sorted) {
+			// ids follow edge list order, not sorted order
+			src[e] = edges.getSource(e);
+			dst[e] = edges.getTarget(e);
+			weight[e] = edges.getWeight(e);
+			home[e] = -1;
+			if (components.union(src[e], dst[e])) {
+				linkEdge(e);
+			} else {
+				state[e] = NON_TREE;
+			}
+		}
+		edgeCount = edges.size();
+		int count = 0;
+		int[] all = new int[edgeCount];
+		for (int e=0; e < edgeCount; e++) {
+			if (src[e] != dst[e]) {
+				all[count++] = e;
+			}
+		}
+		rehome(all, count);
+	}
+
+	/**
+	 * Inserts a new edge, updating the spanning forest if the edge belongs in it.
+	 *
+	 * @param u Number of the vertex at one end
+	 * @param v Number of the vertex at the other end
+	 * @param w Weight of the edge
+	 * @return Id of the new edge
+	 */
+	public int insert(int u, int v, int w) {
+		if (u < 0 || u >= n || v < 0 || v >= n) {
+			throw new IllegalArgumentException("no vertex " + (u < 0 || u >= n ? u : v));
+		}
+		if (edgeCount == src.length) {
+			int cap = edgeCount + (edgeCount >> 1);
+			src = Arrays.copyOf(src, cap);
+			dst = Arrays.copyOf(dst, cap);
+			weight = Arrays.copyOf(weight, cap);
+			state = Arrays.copyOf(state, cap);
+			edgeNode = Arrays.copyOf(edgeNode, cap);
+			home = Arrays.copyOf(home, cap);
+			homeSlot = Arrays.copyOf(homeSlot, cap);
+			extra = Arrays.copyOf(extra, cap);
+			extraCount = Arrays.copyOf(extraCount, cap);
+		}
+		int e = edgeCount++;
+		src[e] = u;
+		dst[e] = v;
+		weight[e] = w;
+		place(e);
+		return e;
+	}
+
+	/**
+	 * Inserts a new edge between two vertices given by name.
+	 *
+	 * @param v1 Name of the vertex at one end
+	 * @param v2 Name of the vertex at the other end
+	 * @param w Weight of the edge
+	 * @return Id of the new edge
+	 */
+	public int insert(String v1, String v2, int w) {
+		return insert(vertex(v1), vertex(v2), w);
+	}
+
+	/**
+	 * Deletes an edge. If it was in the spanning forest, the lightest edge that
+	 * reconnects the two halves, if any, takes its place. Takes O(log^4 n)
+	 * amortized time.
+	 *
+	 * @param e Id of the edge
+	 * @throws NoSuchElementException If there is no such edge
+	 */
+	public void delete(int e) {
+		check(e);
+		remove(e);
+		state[e] = DELETED;
+	}
+
+	/**
+	 * Changes the weight of an edge, updating the spanning forest. Making a
+	 * tree edge lighter takes O(log n) amortized time; anything else is a
+	 * deletion and an insertion, in O(log^4 n) amortized time.
+	 *
+	 * @param e Id of the edge
+	 * @param w New weight
+	 * @throws NoSuchElementException If there is no such edge
+	 */
+	public void reweight(int e, int w) {
+		check(e);
+		if (state[e] == TREE && w <= weight[e]) {
+			// a lighter tree edge stays in the tree, and the paths through it only get lighter
+			totalWeight += (long)w - weight[e];
+			weight[e] = w;
+			forest.setValue(edgeNode[e], key(e));
+			return;
+		}
+		remove(e);
+		weight[e] = w;
+		place(e);
+	}
+
+	/**
+	 * Returns the total weight of the spanning forest.
+	 *
+	 * @return Total weight
+	 */
+	public long totalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * Tells if an edge is in the spanning forest.
+	 *
+	 * @param e Id of the edge
+	 * @return True if the edge is a tree edge
+	 */
+	public boolean inTree(int e) {
+		check(e);
+		return state[e] == TREE;
+	}
+
+	/**
+	 * Returns the arcs of the spanning forest.
+	 *
+	 * @return Array list of all arcs that are in the MST - sequence of arcs is irrelevant
+	 */
+	public ArrayList<Arc> arcs() {
+		ArrayList<Arc> arcList = new ArrayList<Arc>(nodeEdge.length - freeCount);
+		for (int k=0; k < nodeEdge.length; k++) {
+			int e = nodeEdge[k];
+			if (e >= 0 && state[e] == TREE && edgeNode[e] == n + k) {
+				arcList.add(new Arc(graph.vertices[src[e]], graph.vertices[dst[e]], weight[e]));
+			}
+		}
+		return arcList;
+	}
+
+	/**
+	 * Puts an edge that is in neither the forest nor any part where it belongs.
+	 */
+	private void place(int e) {
+		int u = src[e], v = dst[e];
+		home[e] = -1;
+		if (u == v) {
+			state[e] = NON_TREE;
+			return;
+		}
+		int count = 0;
+		batch[count++] = e;
+		if (!forest.connected(u, v)) {
+			linkEdge(e);
+		} else {
+			int f = nodeEdge[forest.pathMax(u, v) - n];
+			if (key(f) > key(e)) {
+				unlinkEdge(f);
+				state[f] = NON_TREE;
+				linkEdge(e);
+				move(f);
+				batch[count++] = f;
+			} else {
+				state[e] = NON_TREE;
+			}
+		}
+		rehome(batch, count);
+	}
+
+	/**
+	 * Takes an edge out of the forest and the parts, replacing it in the forest
+	 * if it was a tree edge. The parts' replacements for its slots are the
+	 * candidates; the lightest one that reconnects the forest goes in, and the
+	 * rest are moved.
+	 */
+	private void remove(int e) {
+		boolean wasTree = state[e] == TREE;
+		if (wasTree) {
+			unlinkEdge(e);
+		}
+		state[e] = NON_TREE;
+		int count = 0;
+		if (home[e] >= 0) {
+			Part part = parts[home[e]];
+			part.edges--;
+			count = retire(part, homeSlot[e], count);
+			home[e] = -1;
+		}
+		for (int i=0; i < extraCount[e]; i++) {
+			Part part = part(extra[e][i]);
+			int s = (int)extra[e][i];
+			if (part != null && part.owner[s] == SUPER) {
+				count = retire(part, s, count);
+			}
+		}
+		extra[e] = null;
+		extraCount[e] = 0;
+
+		int best = -1;
+		for (int i=0; wasTree && i < count; i++) {
+			int c = candidates[i];
+			if ((best < 0 || key(c) < key(best)) && !forest.connected(src[c], dst[c])) {
+				best = c;
+			}
+		}
+		if (best >= 0) {
+			linkEdge(best);
+		}
+		int moved = 0;
+		if (batch.length < count) {
+			batch = new int[count];
+		}
+		for (int i=0; i < count; i++) {
+			if (candidates[i] != best) {
+				move(candidates[i]);
+				batch[moved++] = candidates[i];
+			}
+		}
+		rehome(batch, moved);
+	}
+
+	/**
+	 * Deletes a part slot, adding the part's replacement for it, if any, to the candidates.
+	 *
+	 * @return New number of candidates
+	 */
+	private int retire(Part part, int s, int count) {
+		part.owner[s] = NONE;
+		int r = part.msf.delete(s);
+		if (r >= 0) {
+			if (count == candidates.length) {
+				candidates = Arrays.copyOf(candidates, 2*count);
+			}
+			candidates[count++] = part.owner[r];
+		}
+		return count;
+	}
+
+	/**
+	 * Takes an edge out of its part, whose slot for it then stands for the
+	 * edge, to be put in a part again by {@link #rehome(int[], int)}.
+	 */
+	private void move(int e) {
+		Part part = parts[home[e]];
+		part.owner[homeSlot[e]] = SUPER;
+		part.edges--;
+		addExtra(e, label(part, homeSlot[e]));
+		home[e] = -1;
+	}
+
+	/**
+	 * Puts edges into a part, making the first part j that can hold them and
+	 * the edges of parts 0..j, and rebuilding it from them.
+	 */
+	private void rehome(int[] moved, int count) {
+		if (count == 0) {
+			return;
+		}
+		int j = 0;
+		long total = count;
+		for (;; j++) {
+			if (j < parts.length && parts[j] != null) {
+				total += parts[j].edges;
+			}
+			if (total <= 1L << j) {
+				break;
+			}
+		}
+		if (j >= parts.length) {
+			parts = Arrays.copyOf(parts, j+1);
+			forest.ensureLayers(j+1);
+		}
+		int[] edges = Arrays.copyOf(moved, (int)total);
+		for (int i=0; i <= j; i++) {
+			if (parts[i] != null) {
+				for (int e : parts[i].owner) {
+					if (e >= 0) {
+						edges[count++] = e;
+					}
+				}
+				parts[i] = null;
+			}
+		}
+		build(j, edges, count);
+	}
+
+	/**
+	 * Builds part j from some edges and the forest paths that join their ends.
+	 * The smallest subtrees of the forest that hold the edges' ends are found
+	 * a vertex at a time, the path from each new vertex to the subtree so far
+	 * being cut short where it first meets the subtree's labels. Vertices where
+	 * paths meet and ends of edges are the vertices of the part, and the paths
+	 * between them are its tree slots, labelled in layer j. Tree edges of the
+	 * forest among the given edges are single-edge paths; the other given edges
+	 * become the non-tree slots, lightest first.
+	 */
+	private void build(int j, int[] edges, int count) {
+		int stamp = ++stamps;
+		long base = (long)stamp << 32;
+		long[] ends = new long[2*count];
+		int terminals = 0, nonTree = 0;
+		for (int i=0; i < count; i++) {
+			int e = edges[i];
+			if (state[e] != TREE) {
+				nonTree++;
+			}
+			for (int x : new int[] {src[e], dst[e]}) {
+				if (vertexStamp[x] != stamp) {
+					vertexStamp[x] = stamp;
+					localVertex[x] = -1;
+					ends[terminals++] = ((long)forest.findRoot(x) << 32) | x;
+				}
+			}
+		}
+		// grouping the ends by tree
+		Arrays.sort(ends, 0, terminals);
+
+		int vertices = 0, paths = 0;
+		int[] a = new int[2*terminals], b = new int[a.length];
+		for (int i=0; i < terminals; ) {
+			int root = (int)(ends[i] >>> 32);
+			int first = (int)ends[i++];
+			localVertex[first] = vertices++;
+			for (; i < terminals && (int)(ends[i] >>> 32) == root; i++) {
+				int t = (int)ends[i];
+				if (localVertex[t] >= 0) {
+					continue;
+				}
+				int p = forest.lastLabeled(first, t, base);
+				if (p == t) {
+					vertices = split(j, base, (int)forest.getLabel(t, j), t, a, b, paths++, vertices);
+					continue;
+				}
+				if (p < 0) {
+					p = first;
+				} else if (vertexStamp[p] != stamp || localVertex[p] < 0) {
+					vertexStamp[p] = stamp;
+					vertices = split(j, base, (int)forest.getLabel(p, j), p, a, b, paths++, vertices);
+				}
+				localVertex[t] = vertices++;
+				a[paths] = p;
+				b[paths] = t;
+				forest.labelPath(p, t, j, base | paths);
+				paths++;
+			}
+		}
+
+		int[] owner = new int[paths + nonTree];
+		Arrays.fill(owner, 0, paths, SUPER);
+		long[] keys = new long[nonTree];
+		nonTree = 0;
+		for (int i=0; i < count; i++) {
+			int e = edges[i];
+			home[e] = j;
+			if (state[e] == TREE) {
+				int s = (int)forest.getLabel(edgeNode[e], j);
+				owner[s] = e;
+				homeSlot[e] = s;
+			} else {
+				keys[nonTree++] = key(e);
+			}
+		}
+		Arrays.sort(keys);
+		DecrementalMsf msf = new DecrementalMsf(vertices, owner.length);
+		for (int s=0; s < paths; s++) {
+			msf.addTreeEdge(localVertex[a[s]], localVertex[b[s]]);
+		}
+		for (int k=0; k < nonTree; k++) {
+			int e = EdgeList.keyEdge(keys[k]);
+			int s = msf.addNonTreeEdge(localVertex[src[e]], localVertex[dst[e]]);
+			owner[s] = e;
+			homeSlot[e] = s;
+		}
+		parts[j] = new Part(stamp, msf, owner, count);
+	}
+
+	/**
+	 * Splits a path of a part being built at a vertex inside it, the far half
+	 * becoming a new path.
+	 *
+	 * @return New number of vertices of the part
+	 */
+	private int split(int j, long base, int path, int x, int[] a, int[] b, int half, int vertices) {
+		a[half] = x;
+		b[half] = b[path];
+		b[path] = x;
+		forest.labelPath(x, b[half], j, base | half);
+		localVertex[x] = vertices;
+		return vertices + 1;
+	}
+
+	/**
+	 * Returns the label of a part slot.
+	 */
+	private static long label(Part part, int s) {
+		return ((long)part.stamp << 32) | s;
+	}
+
+	/**
+	 * Returns the part a label belongs to.
+	 *
+	 * @return Part, or null if the part has since been rebuilt
+	 */
+	private Part part(long label) {
+		int stamp = (int)(label >>> 32);
+		for (Part part : parts) {
+			if (part != null && part.stamp == stamp) {
+				return part;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Adds a label to an edge's extra labels, dropping those of slots that no
+	 * longer stand for paths or moved edges first if there is no room.
+	 */
+	private void addExtra(int e, long label) {
+		long[] labels = extra[e];
+		int count = extraCount[e];
+		if (labels == null) {
+			labels = extra[e] = new long[4];
+		} else if (count == labels.length) {
+			int kept = 0;
+			for (int i=0; i < count; i++) {
+				Part part = part(labels[i]);
+				if (part != null && part.owner[(int)labels[i]] == SUPER) {
+					labels[kept++] = labels[i];
+				}
+			}
+			count = kept;
+			if (count > labels.length/2) {
+				labels = extra[e] = Arrays.copyOf(labels, 2*labels.length);
+			}
+		}
+		labels[count++] = label;
+		extraCount[e] = count;
+	}
+
+	private long key(int e) {
+		return EdgeList.key(weight[e], e);
+	}
+
+	private void linkEdge(int e) {
+		int node = freeNodes[--freeCount];
+		edgeNode[e] = node;
+		nodeEdge[node - n] = e;
+		forest.setValue(node, key(e));
+		forest.link(src[e], node);
+		forest.link(node, dst[e]);
+		state[e] = TREE;
+		totalWeight += weight[e];
+	}
+
+	/**
+	 * Cuts a tree edge out of the forest, keeping the labels of the paths
+	 * through it as extra labels of the edge.
+	 */
+	private void unlinkEdge(int e) {
+		int node = edgeNode[e];
+		for (int j=0; j < parts.length; j++) {
+			long label = forest.getLabel(node, j);
+			Part part = parts[j];
+			if (part != null && (int)(label >>> 32) == part.stamp && part.owner[(int)label] == SUPER) {
+				addExtra(e, label);
+			}
+		}
+		forest.cut(src[e], node);
+		forest.cut(node, dst[e]);
+		forest.clearLabels(node);
+		nodeEdge[node - n] = -1;
+		freeNodes[freeCount++] = node;
+		totalWeight -= weight[e];
+	}
+
+	private void check(int e) {
+		if (e < 0 || e >= edgeCount || state[e] == DELETED) {
+			throw new NoSuchElementException("no edge " + e);
+		}
+	}
+
+	private int vertex(String name) {
+		int v = graph.indexOf(name);
+		if (v < 0) {
+			throw new IllegalArgumentException("no vertex " + name);
+		}
+		return v;
+	}
+}
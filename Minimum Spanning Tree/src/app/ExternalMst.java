@@ -0,0 +1,335 @@
+package app;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.ArrayList;
+
+import structures.BinaryGraphFile;
+import structures.EdgeList;
+import structures.EdgeSorter;
+import structures.GraphIO;
+import structures.MinHeap;
+import structures.UnionFind;
+
+/**
+ * Kruskal's algorithm for graphs whose edges do not fit in memory. Only
+ * vertex-level state - the vertex names and a union-find over the vertices -
+ * is held in memory. The edges are sorted by an external merge sort: they are
+ * streamed from the graph file in runs that fit in memory, each run is sorted
+ * and written to a temporary file, and the runs are then merged, as many at a
+ * time as {@link #FAN_IN}, until a single merge can feed Kruskal's scan. The
+ * accepted arcs are written to an output file as they are found, one
+ * "name name weight" line per arc.
+ * 
+ * Usage: ExternalMst graphfile arcfile [edges per run]
+ */
+public class ExternalMst {
+
+	/**
+	 * Largest number of runs merged at once
+	 */
+	public static final int FAN_IN = 64;
+
+	/**
+	 * Bytes of a run record: v1, v2, weight
+	 */
+	private static final int RECORD_BYTES = 12;
+
+	/**
+	 * Number of edges sorted in memory per run
+	 */
+	private int runEdges;
+
+	/**
+	 * Directory for temporary run files
+	 */
+	private File tempDir;
+
+	/**
+	 * Results of the last execute
+	 */
+	private long arcCount, totalWeight;
+
+	/**
+	 * Initializes the algorithm with runs sized to a quarter of the maximum heap,
+	 * at about 24 bytes per edge while a run is sorted, and temporary files in the
+	 * default temporary directory.
+	 */
+	public ExternalMst() {
+		this((int)Math.min(Runtime.getRuntime().maxMemory() / 4 / 24, Integer.MAX_VALUE / 2), null);
+	}
+
+	/**
+	 * Initializes the algorithm with the given run size and temporary directory.
+	 * 
+	 * @param runEdges Number of edges sorted in memory per run
+	 * @param tempDir Directory for run files, or null for the default temporary directory
+	 */
+	public ExternalMst(int runEdges, File tempDir) {
+		this.runEdges = Math.max(runEdges, 1);
+		this.tempDir = tempDir;
+	}
+
+	public static void main(String[] args)
+	throws IOException {
+		if (args.length < 2) {
+			System.out.println("Usage: ExternalMst graphfile arcfile [edges per run]");
+			return;
+		}
+		ExternalMst mst = args.length > 2 ? new ExternalMst(Integer.parseInt(args[2]), null) : new ExternalMst();
+		long start = System.nanoTime();
+		mst.execute(args[0], args[1]);
+		System.out.println(mst.getArcCount() + " arcs, total weight " + mst.getTotalWeight()
+				+ ", in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+
+	/**
+	 * Finds a minimum spanning forest of the graph in a file, writing its arcs
+	 * to another file. A text graph file is first converted to a temporary binary file.
+	 * 
+	 * @param graphFile Name of graph file, in text or binary format
+	 * @param arcFile Name of output file
+	 * @throws IOException If a file cannot be read or written
+	 */
+	public void execute(String graphFile, String arcFile)
+	throws IOException {
+		File converted = null;
+		if (!GraphIO.isBinary(graphFile)) {
+			converted = File.createTempFile("graph", ".bin", tempDir);
+			GraphIO.convert(graphFile, converted.getPath());
+			graphFile = converted.getPath();
+		}
+		// files made by a merge pass that is not over yet are in merged
+		ArrayList<File> runs = new ArrayList<File>(), merged = new ArrayList<File>();
+		try {
+			BinaryGraphFile in = new BinaryGraphFile(graphFile);
+			String[] names = in.getNames();
+			try {
+				makeRuns(in, runs);
+			} finally {
+				in.close();
+			}
+			while (runs.size() > FAN_IN) {
+				for (int i=0; i < runs.size(); i+=FAN_IN) {
+					merged.add(mergeRuns(runs.subList(i, Math.min(i + FAN_IN, runs.size()))));
+				}
+				runs = merged;
+				merged = new ArrayList<File>();
+			}
+			scan(runs, names, arcFile);
+		} finally {
+			for (File run : runs) {
+				run.delete();
+			}
+			for (File run : merged) {
+				run.delete();
+			}
+			if (converted != null) {
+				converted.delete();
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of arcs found by the last execute.
+	 * 
+	 * @return Number of arcs
+	 */
+	public long getArcCount() {
+		return arcCount;
+	}
+
+	/**
+	 * Returns the total weight of the arcs found by the last execute.
+	 * 
+	 * @return Total weight
+	 */
+	public long getTotalWeight() {
+		return totalWeight;
+	}
+
+	/**
+	 * Reads the edges in runs of runEdges, sorts each run by weight, and writes it
+	 * to a temporary file. Self loops are dropped.
+	 */
+	private void makeRuns(BinaryGraphFile in, ArrayList<File> runs)
+	throws IOException {
+		EdgeList run = new EdgeList((int)Math.min(runEdges, in.getEdgeCount()));
+		while (true) {
+			boolean more = true;
+			while (run.size() < runEdges && (more = in.nextEdge())) {
+				if (in.getSource() != in.getTarget()) {
+					run.add(in.getSource(), in.getTarget(), in.getWeight());
+				}
+			}
+			if (run.size() > 0) {
+				File file = File.createTempFile("run", ".bin", tempDir);
+				runs.add(file);
+				DataOutputStream out = openRun(file);
+				try {
+					for (int e : EdgeSorter.RADIX.sort(run)) {
+						out.writeInt(run.getSource(e));
+						out.writeInt(run.getTarget(e));
+						out.writeInt(run.getWeight(e));
+					}
+				} finally {
+					out.close();
+				}
+				run.clear();
+			}
+			if (!more) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Merges sorted runs into one new sorted run, and deletes them. If the
+	 * merge fails, the new run is deleted too.
+	 */
+	private File mergeRuns(java.util.List<File> runs)
+	throws IOException {
+		File file = File.createTempFile("run", ".bin", tempDir);
+		boolean done = false;
+		try {
+			DataOutputStream out = openRun(file);
+			MinHeap<RunReader> heap = null;
+			try {
+				heap = openReaders(runs);
+				while (!heap.isEmpty()) {
+					RunReader r = heap.deleteMin();
+					out.writeInt(r.source);
+					out.writeInt(r.target);
+					out.writeInt(r.weight);
+					if (r.next()) {
+						heap.insert(r);
+					} else {
+						r.close();
+					}
+				}
+			} finally {
+				out.close();
+				if (heap != null) {
+					for (RunReader r : heap) {
+						r.close();
+					}
+				}
+			}
+			done = true;
+		} finally {
+			for (File run : runs) {
+				run.delete();
+			}
+			if (!done) {
+				file.delete();
+			}
+		}
+		return file;
+	}
+
+	/**
+	 * Merges the final runs and runs Kruskal's scan over the merged stream,
+	 * stopping once a spanning tree is complete.
+	 */
+	private void scan(ArrayList<File> runs, String[] names, String arcFile)
+	throws IOException {
+		UnionFind components = new UnionFind(names.length);
+		arcCount = 0;
+		totalWeight = 0;
+		BufferedWriter out = new BufferedWriter(new FileWriter(arcFile), 1 << 16);
+		MinHeap<RunReader> heap = openReaders(runs);
+		try {
+			while (!heap.isEmpty() && components.count() > 1) {
+				RunReader r = heap.deleteMin();
+				if (components.union(r.source, r.target)) {
+					out.write(names[r.source]);
+					out.write(' ');
+					out.write(names[r.target]);
+					out.write(' ');
+					out.write(Integer.toString(r.weight));
+					out.newLine();
+					arcCount++;
+					totalWeight += r.weight;
+				}
+				if (r.next()) {
+					heap.insert(r);
+				} else {
+					r.close();
+				}
+			}
+		} finally {
+			out.close();
+			for (RunReader r : heap) {
+				r.close();
+			}
+		}
+	}
+
+	private MinHeap<RunReader> openReaders(java.util.List<File> runs)
+	throws IOException {
+		MinHeap<RunReader> heap = new MinHeap<RunReader>(runs.size());
+		for (int i=0; i < runs.size(); i++) {
+			RunReader r = new RunReader(runs.get(i), i);
+			if (r.next()) {
+				heap.insert(r);
+			} else {
+				r.close();
+			}
+		}
+		return heap;
+	}
+
+	private static DataOutputStream openRun(File file)
+	throws IOException {
+		return new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+	}
+
+	/**
+	 * Cursor over the records of a sorted run file. Readers compare by the weight
+	 * of their current record, then by run number, so merges are deterministic.
+	 */
+	private static class RunReader implements Comparable<RunReader> {
+		private DataInputStream in;
+		private int run;
+		int source, target, weight;
+
+		RunReader(File file, int run)
+		throws IOException {
+			in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 1 << 16));
+			this.run = run;
+		}
+
+		boolean next()
+		throws IOException {
+			try {
+				source = in.readInt();
+			} catch (EOFException e) {
+				return false;
+			}
+			target = in.readInt();
+			weight = in.readInt();
+			return true;
+		}
+
+		void close()
+		throws IOException {
+			in.close();
+		}
+
+		public int compareTo(RunReader other) {
+			if (weight != other.weight) {
+				return weight < other.weight ? -1 : 1;
+			}
+			return run - other.run;
+		}
+	}
+}
@@ -0,0 +1,278 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import structures.Arc;
+import structures.EdgeList;
+import structures.Graph;
+import structures.UnionFind;
+
+/**
+ * Filter-Kruskal. The edges, as packed (weight, edge) keys, are partitioned
+ * around a pivot key; the light part is solved first, recursively, and then
+ * every heavy edge whose ends are already in the same component is filtered
+ * out before the heavy part is solved. On sparse graphs most heavy edges are
+ * filtered this way and never sorted. Partitioning and filtering of large
+ * ranges run on a fork-join pool. Unions are made by one thread, in weight
+ * order; a parallel filter only reads the union-find, with
+ * {@link UnionFind#root(int)}, which unlike find does not compress paths.
+ */
+public class FilterKruskalMst implements MstAlgorithm {
+
+	/**
+	 * Ranges at most this long are sorted and scanned as in plain Kruskal
+	 */
+	private static final int SORT_THRESHOLD = 1 << 12;
+
+	/**
+	 * Ranges at least this long are partitioned and filtered in parallel
+	 */
+	private static final int PARALLEL_THRESHOLD = 1 << 16;
+
+	/**
+	 * Chunk size of a parallel partition or filter task
+	 */
+	private static final int GRAIN = 1 << 14;
+
+	/**
+	 * Pool on which partitions and filters run
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Initializes the algorithm to run on the common fork-join pool
+	 */
+	public FilterKruskalMst() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initializes the algorithm to run on the given pool
+	 *
+	 * @param pool Fork-join pool
+	 */
+	public FilterKruskalMst(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public ArrayList<Arc> execute(Graph graph) {
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int n = graph.vertices.length;
+		long[] keys = new long[edges.size()];
+		for (int e=0; e < keys.length; e++) {
+			keys[e] = EdgeList.key(edges.getWeight(e), e);
+		}
+		Run run = new Run(edges, n, keys);
+		run.solve(0, keys.length);
+
+		ArrayList<Arc> arcList = new ArrayList<Arc>(run.taken);
+		for (int i=0; i < run.taken; i++) {
+			arcList.add(edges.toArc(graph, run.accepted[i]));
+		}
+		return arcList;
+	}
+
+	/**
+	 * State of one run of the algorithm
+	 */
+	private class Run {
+		EdgeList edges;
+		UnionFind components;
+		/**
+		 * Keys of the edges still under consideration; ranges of it are rearranged in place
+		 */
+		long[] keys;
+		/**
+		 * Scratch space for parallel partitioning and filtering
+		 */
+		long[] scratch;
+		int[] accepted;
+		int taken, needed;
+		java.util.Random rand = new java.util.Random(0x5EED);
+
+		Run(EdgeList edges, int n, long[] keys) {
+			this.edges = edges;
+			this.keys = keys;
+			components = new UnionFind(n);
+			accepted = new int[Math.max(n-1, 0)];
+			needed = Math.max(n-1, 0);
+		}
+
+		/**
+		 * Solves the keys in [lo, hi), all heavier than any key accepted so far.
+		 */
+		void solve(int lo, int hi) {
+			while (hi - lo > SORT_THRESHOLD && taken < needed) {
+				long pivot = pivot(lo, hi);
+				int mid = partition(lo, hi, pivot);
+				if (mid == lo || mid == hi) {
+					// every key on one side of the pivot: stop splitting this range
+					break;
+				}
+				solve(lo, mid);
+				lo = mid;
+				hi = filter(lo, hi);
+			}
+			if (taken < needed && lo < hi) {
+				kruskal(lo, hi);
+			}
+		}
+
+		/**
+		 * Median of three random keys of the range
+		 */
+		long pivot(int lo, int hi) {
+			long a = keys[lo + rand.nextInt(hi - lo)];
+			long b = keys[lo + rand.nextInt(hi - lo)];
+			long c = keys[lo + rand.nextInt(hi - lo)];
+			return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+		}
+
+		/**
+		 * Moves the keys of [lo, hi) that are at most pivot to the front.
+		 * 
+		 * @return Index of the first key greater than pivot
+		 */
+		int partition(int lo, int hi, final long pivot) {
+			if (hi - lo >= PARALLEL_THRESHOLD) {
+				return parallelSplit(lo, hi, new Keep() {
+					public boolean keep(long key) { return key <= pivot; }
+				}, true);
+			}
+			int i = lo, j = hi - 1;
+			while (true) {
+				while (i <= j && keys[i] <= pivot) {
+					i++;
+				}
+				while (i <= j && keys[j] > pivot) {
+					j--;
+				}
+				if (i > j) {
+					return i;
+				}
+				long t = keys[i]; keys[i] = keys[j]; keys[j] = t;
+			}
+		}
+
+		/**
+		 * Drops the keys of [lo, hi) whose edges no longer join two components.
+		 * 
+		 * @return End of the surviving keys, which start at lo
+		 */
+		int filter(int lo, int hi) {
+			if (hi - lo >= PARALLEL_THRESHOLD) {
+				return parallelSplit(lo, hi, new Keep() {
+					public boolean keep(long key) {
+						int e = EdgeList.keyEdge(key);
+						return components.root(edges.getSource(e)) != components.root(edges.getTarget(e));
+					}
+				}, false);
+			}
+			int out = lo;
+			for (int i=lo; i < hi; i++) {
+				int e = EdgeList.keyEdge(keys[i]);
+				if (components.find(edges.getSource(e)) != components.find(edges.getTarget(e))) {
+					keys[out++] = keys[i];
+				}
+			}
+			return out;
+		}
+
+		/**
+		 * Sorts the keys of [lo, hi) and scans them as in plain Kruskal.
+		 */
+		void kruskal(int lo, int hi) {
+			Arrays.sort(keys, lo, hi);
+			for (int i=lo; i < hi && taken < needed; i++) {
+				int e = EdgeList.keyEdge(keys[i]);
+				if (components.union(edges.getSource(e), edges.getTarget(e))) {
+					accepted[taken++] = e;
+				}
+			}
+		}
+
+		/**
+		 * Splits [lo, hi) in parallel into the kept keys followed (if wanted) by the
+		 * other keys, keeping the relative order within each part. Each chunk counts
+		 * its kept keys, a prefix sum places the chunks, and the chunks are copied
+		 * into scratch space and back.
+		 * 
+		 * @return Index of the first key not kept
+		 */
+		int parallelSplit(int lo, int hi, Keep test, boolean keepRest) {
+			if (scratch == null) {
+				scratch = new long[keys.length];
+			}
+			int chunks = (hi - lo + GRAIN - 1) / GRAIN;
+			int[] kept = new int[chunks];
+			pool.invoke(new SplitTask(this, test, lo, hi, 0, chunks, kept, null, 0, false));
+			int[] at = new int[chunks];
+			int total = 0;
+			for (int c=0; c < chunks; c++) {
+				at[c] = total;
+				total += kept[c];
+			}
+			pool.invoke(new SplitTask(this, test, lo, hi, 0, chunks, kept, at, total, keepRest));
+			int end = keepRest ? hi : lo + total;
+			System.arraycopy(scratch, lo, keys, lo, end - lo);
+			return lo + total;
+		}
+	}
+
+	/**
+	 * Test deciding which keys a split keeps at the front
+	 */
+	private interface Keep {
+		boolean keep(long key);
+	}
+
+	private static class SplitTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Run run;
+		private Keep test;
+		private int lo, hi, from, to, total;
+		private int[] kept, at;
+		private boolean keepRest;
+
+		SplitTask(Run run, Keep test, int lo, int hi, int from, int to, int[] kept, int[] at, int total, boolean keepRest) {
+			this.run = run; this.test = test; this.lo = lo; this.hi = hi;
+			this.from = from; this.to = to; this.kept = kept; this.at = at;
+			this.total = total; this.keepRest = keepRest;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new SplitTask(run, test, lo, hi, from, mid, kept, at, total, keepRest),
+						new SplitTask(run, test, lo, hi, mid, to, kept, at, total, keepRest));
+				return;
+			}
+			int start = lo + from*GRAIN, end = Math.min(start + GRAIN, hi);
+			long[] keys = run.keys;
+			if (at == null) {
+				int count = 0;
+				for (int i=start; i < end; i++) {
+					if (test.keep(keys[i])) {
+						count++;
+					}
+				}
+				kept[from] = count;
+				return;
+			}
+			// kept keys go after those of earlier chunks; the rest go after all kept keys
+			int in = lo + at[from];
+			int out = lo + total + (start - lo) - at[from];
+			long[] scratch = run.scratch;
+			for (int i=start; i < end; i++) {
+				if (test.keep(keys[i])) {
+					scratch[in++] = keys[i];
+				} else if (keepRest) {
+					scratch[out++] = keys[i];
+				}
+			}
+		}
+	}
+}
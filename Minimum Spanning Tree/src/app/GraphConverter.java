@@ -0,0 +1,35 @@
+package app;
+
+import java.io.IOException;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.GraphIO;
+
+/**
+ * Converts a text graph file to the binary graph format, then times loading
+ * the graph from each of the two files, and from the text file in parallel.
+ * 
+ * Usage: GraphConverter textfile binaryfile
+ */
+public class GraphConverter {
+
+	public static void main(String[] args)
+	throws IOException {
+		if (args.length != 2) {
+			System.out.println("Usage: GraphConverter textfile binaryfile");
+			return;
+		}
+		long start = System.nanoTime();
+		long m = GraphIO.convert(args[0], args[1]);
+		System.out.println("Converted " + m + " edges in " + (System.nanoTime() - start) / 1000000 + " ms");
+
+		for (String file : args) {
+			start = System.nanoTime();
+			new structures.Graph(file);
+			System.out.println("Loaded " + file + " in " + (System.nanoTime() - start) / 1000000 + " ms");
+		}
+		start = System.nanoTime();
+		new structures.Graph(args[0], ForkJoinPool.commonPool());
+		System.out.println("Loaded " + args[0] + " in parallel in " + (System.nanoTime() - start) / 1000000 + " ms");
+	}
+}
@@ -0,0 +1,276 @@
+package app;
+
+import java.io.IOException;
+import java.util.Random;
+
+import structures.EdgeList;
+import structures.Graph;
+import structures.GraphIO;
+
+/**
+ * Builds synthetic graphs for exercising the MST algorithms: random G(n,m)
+ * graphs, complete graphs, 2D grids and power-law graphs, each with a choice of
+ * weight distribution. Graphs are built in memory, and can be written out in
+ * the text graph file format.
+ * 
+ * Usage: GraphGenerator random|complete|grid|powerlaw size1 [size2] file
+ * 
+ * where the sizes are n m for random, n for complete, rows cols for grid, and
+ * n k (edges per new vertex) for powerlaw. Weights are uniform in 1..1000000.
+ */
+public class GraphGenerator {
+
+	/**
+	 * A distribution of edge weights.
+	 */
+	public interface Weights {
+
+		/**
+		 * Draws a weight.
+		 *
+		 * @param rand Random number source
+		 * @return Weight
+		 */
+		int next(Random rand);
+	}
+
+	/**
+	 * Weights uniform in 1..1000000, almost all distinct
+	 */
+	public static final Weights UNIFORM = uniform(1000000);
+
+	/**
+	 * Weights uniform in 1..10, with many ties
+	 */
+	public static final Weights FEW_DISTINCT = uniform(10);
+
+	/**
+	 * Weights with an exponential distribution of mean 1000: many light edges and a long heavy tail
+	 */
+	public static final Weights EXPONENTIAL = new Weights() {
+		public int next(Random rand) {
+			return 1 + (int)Math.min(-1000 * Math.log(1 - rand.nextDouble()), Integer.MAX_VALUE - 1);
+		}
+		public String toString() {
+			return "exponential";
+		}
+	};
+
+	/**
+	 * Makes a distribution of weights uniform in 1..maxWeight.
+	 *
+	 * @param maxWeight Largest weight
+	 * @return Weight distribution
+	 */
+	public static Weights uniform(final int maxWeight) {
+		return new Weights() {
+			public int next(Random rand) {
+				return 1 + rand.nextInt(maxWeight);
+			}
+			public String toString() {
+				return "uniform 1.." + maxWeight;
+			}
+		};
+	}
+
+	public static void main(String[] args)
+	throws IOException {
+		if (args.length < 3) {
+			System.out.println("Usage: GraphGenerator random|complete|grid|powerlaw size1 [size2] file");
+			return;
+		}
+		int a = Integer.parseInt(args[1]);
+		int b = args.length > 3 ? Integer.parseInt(args[2]) : 0;
+		Graph graph;
+		if (args[0].equals("random")) {
+			graph = random(a, b, UNIFORM, 1);
+		} else if (args[0].equals("complete")) {
+			graph = complete(a, UNIFORM, 1);
+		} else if (args[0].equals("grid")) {
+			graph = grid(a, b, UNIFORM, 1);
+		} else if (args[0].equals("powerlaw")) {
+			graph = powerLaw(a, b, UNIFORM, 1);
+		} else {
+			System.out.println("Unknown graph type: " + args[0]);
+			return;
+		}
+		GraphIO.writeText(graph, args[args.length-1]);
+	}
+
+	/**
+	 * Builds a random graph with n vertices and m edges, chosen uniformly with
+	 * replacement (G(n,m)), with weights drawn uniformly from 1..maxWeight.
+	 *
+	 * @param n Number of vertices
+	 * @param m Number of edges
+	 * @param maxWeight Largest weight
+	 * @param seed Random seed
+	 * @return Generated graph
+	 */
+	public static Graph random(int n, int m, int maxWeight, long seed) {
+		return random(n, m, uniform(maxWeight), seed);
+	}
+
+	/**
+	 * Builds a random graph with n vertices and m edges, chosen uniformly with
+	 * replacement (G(n,m)). An edge that would be a self loop is moved to the next vertex.
+	 *
+	 * @param n Number of vertices, at least 2
+	 * @param m Number of edges
+	 * @param weights Weight distribution
+	 * @param seed Random seed
+	 * @return Generated graph
+	 * @throws IllegalArgumentException If n is less than 2, or m is negative or too large
+	 */
+	public static Graph random(int n, int m, Weights weights, long seed) {
+		if (n < 2) {
+			throw new IllegalArgumentException("a random graph needs at least 2 vertices, not " + n);
+		}
+		Random rand = new Random(seed);
+		EdgeList edges = new EdgeList(edgeCount(m));
+		for (int i=0; i < m; i++) {
+			int u = rand.nextInt(n), v = rand.nextInt(n);
+			if (u == v) {
+				v = (v + 1) % n;
+			}
+			edges.add(u, v, weights.next(rand));
+		}
+		return new Graph(names(n), edges);
+	}
+
+	/**
+	 * Builds a complete graph on n vertices, with weights drawn uniformly from 1..maxWeight.
+	 *
+	 * @param n Number of vertices
+	 * @param maxWeight Largest weight
+	 * @param seed Random seed
+	 * @return Generated graph
+	 */
+	public static Graph complete(int n, int maxWeight, long seed) {
+		return complete(n, uniform(maxWeight), seed);
+	}
+
+	/**
+	 * Builds a complete graph on n vertices.
+	 *
+	 * @param n Number of vertices
+	 * @param weights Weight distribution
+	 * @param seed Random seed
+	 * @return Generated graph
+	 * @throws IllegalArgumentException If the graph has too many edges
+	 */
+	public static Graph complete(int n, Weights weights, long seed) {
+		Random rand = new Random(seed);
+		EdgeList edges = new EdgeList(edgeCount((long)n*(n-1)/2));
+		for (int u=0; u < n; u++) {
+			for (int v=u+1; v < n; v++) {
+				edges.add(u, v, weights.next(rand));
+			}
+		}
+		return new Graph(names(n), edges);
+	}
+
+	/**
+	 * Builds a 2D grid graph, with every vertex joined to its neighbors to the
+	 * right and below. Vertex (r, c) is vertex number r*cols + c.
+	 *
+	 * @param rows Number of rows
+	 * @param cols Number of columns
+	 * @param weights Weight distribution
+	 * @param seed Random seed
+	 * @return Generated graph
+	 * @throws IllegalArgumentException If the graph has too many edges
+	 */
+	public static Graph grid(int rows, int cols, Weights weights, long seed) {
+		Random rand = new Random(seed);
+		EdgeList edges = new EdgeList(edgeCount(2L*rows*cols));
+		for (int r=0; r < rows; r++) {
+			for (int c=0; c < cols; c++) {
+				int v = r*cols + c;
+				if (c+1 < cols) {
+					edges.add(v, v+1, weights.next(rand));
+				}
+				if (r+1 < rows) {
+					edges.add(v, v+cols, weights.next(rand));
+				}
+			}
+		}
+		return new Graph(names(rows*cols), edges);
+	}
+
+	/**
+	 * Builds a power-law graph by preferential attachment (Barabasi-Albert): the
+	 * graph starts as a complete graph on k+1 vertices, and every later vertex is
+	 * joined to k earlier vertices, each picked with probability proportional to
+	 * its degree. Repeated picks make parallel edges.
+	 *
+	 * @param n Number of vertices, more than k
+	 * @param k Number of edges added with each new vertex
+	 * @param weights Weight distribution
+	 * @param seed Random seed
+	 * @return Generated graph
+	 * @throws IllegalArgumentException If the graph has too many edges
+	 */
+	public static Graph powerLaw(int n, int k, Weights weights, long seed) {
+		Random rand = new Random(seed);
+		EdgeList edges = new EdgeList(edgeCount((long)n*k));
+		// every edge puts both its ends here, so a uniform pick is a degree-weighted pick
+		int[] ends = new int[2*(k*(k+1)/2 + (n-k-1)*k)];
+		int count = 0;
+		for (int u=0; u <= k; u++) {
+			for (int v=u+1; v <= k; v++) {
+				edges.add(u, v, weights.next(rand));
+				ends[count++] = u;
+				ends[count++] = v;
+			}
+		}
+		for (int v=k+1; v < n; v++) {
+			int before = count;
+			for (int i=0; i < k; i++) {
+				int u = ends[rand.nextInt(before)];
+				edges.add(u, v, weights.next(rand));
+				ends[count++] = u;
+				ends[count++] = v;
+			}
+		}
+		return new Graph(names(n), edges);
+	}
+
+	/**
+	 * Largest number of edges in a generated graph: each edge takes two entries
+	 * in the graph's int-indexed CSR arrays
+	 */
+	static final int MAX_EDGES = Integer.MAX_VALUE / 2;
+
+	/**
+	 * Checks a number of edges, computed in long arithmetic so that it does not
+	 * overflow, against MAX_EDGES.
+	 *
+	 * @param m Number of edges
+	 * @return m, as an int
+	 * @throws IllegalArgumentException If m is negative or larger than MAX_EDGES
+	 */
+	static int edgeCount(long m) {
+		if (m < 0) {
+			throw new IllegalArgumentException("negative number of edges: " + m);
+		}
+		if (m > MAX_EDGES) {
+			throw new IllegalArgumentException(m + " edges is too many for an in-memory graph");
+		}
+		return (int)m;
+	}
+
+	/**
+	 * Makes the default vertex names v0, v1, ...
+	 *
+	 * @param n Number of vertices
+	 * @return Array of names
+	 */
+	static String[] names(int n) {
+		String[] names = new String[n];
+		for (int v=0; v < n; v++) {
+			names[v] = "v" + v;
+		}
+		return names;
+	}
+}
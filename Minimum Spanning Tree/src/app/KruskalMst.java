@@ -0,0 +1,52 @@
+package app;
+
+import java.util.ArrayList;
+
+import structures.Arc;
+import structures.EdgeList;
+import structures.EdgeSorter;
+import structures.Graph;
+import structures.UnionFind;
+
+/**
+ * Kruskal's algorithm: scans the edges of the graph from lightest to heaviest,
+ * and accepts every edge that joins two different components.
+ */
+public class KruskalMst implements MstAlgorithm {
+
+	/**
+	 * Orders the edges by weight
+	 */
+	private EdgeSorter sorter;
+
+	/**
+	 * Initializes the algorithm to sort edges with a radix sort
+	 */
+	public KruskalMst() {
+		this(EdgeSorter.RADIX);
+	}
+
+	/**
+	 * Initializes the algorithm to sort edges with the given sorter
+	 *
+	 * @param sorter Edge sorter
+	 */
+	public KruskalMst(EdgeSorter sorter) {
+		this.sorter = sorter;
+	}
+
+	public ArrayList<Arc> execute(Graph graph) {
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int[] order = sorter.sort(edges);
+		int n = graph.vertices.length;
+		UnionFind components = new UnionFind(n);
+		ArrayList<Arc> arcList = new ArrayList<Arc>(Math.max(n-1, 0));
+		for (int i=0; i < order.length && arcList.size() < n-1; i++) {
+			int e = order[i];
+			if (components.union(edges.getSource(e), edges.getTarget(e))) {
+				arcList.add(edges.toArc(graph, e));
+			}
+		}
+		return arcList;
+	}
+}
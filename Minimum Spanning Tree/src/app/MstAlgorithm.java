@@ -0,0 +1,44 @@
+package app;
+
+import java.util.ArrayList;
+
+import structures.Arc;
+import structures.Graph;
+
+/**
+ * An algorithm that computes a minimum spanning tree of a graph.
+ */
+public interface MstAlgorithm {
+
+	/**
+	 * Average vertex degree at or above which a graph counts as dense. Measured
+	 * on random graphs of 50K to 500K vertices ("MstBenchmark density"),
+	 * Kruskal with the radix edge sort is faster, or level, up to an average
+	 * degree of 64, and Prim with an indexed heap is faster from 96 on.
+	 */
+	int DENSE_DEGREE = 80;
+
+	/**
+	 * Picks an algorithm for a graph by its edge density: Prim for dense graphs,
+	 * whose edges it scans without sorting, and Kruskal for sparse ones.
+	 *
+	 * @param graph Graph for which the MST is to be found
+	 * @return Algorithm suited to the graph
+	 */
+	static MstAlgorithm forGraph(Graph graph) {
+		int n = Math.max(graph.vertices.length, 1);
+		if (graph.getAdjacency().entryCount() / n >= DENSE_DEGREE) {
+			return new PrimMst();
+		}
+		return new KruskalMst();
+	}
+
+	/**
+	 * Computes a minimum spanning tree of a graph. If the graph is not connected,
+	 * a minimum spanning forest is computed instead.
+	 *
+	 * @param graph Graph for which the MST is to be found
+	 * @return Array list of all arcs that are in the MST - sequence of arcs is irrelevant
+	 */
+	ArrayList<Arc> execute(Graph graph);
+}
@@ -0,0 +1,422 @@
+package app;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import structures.Arc;
+import structures.ArcHeap;
+import structures.EdgeList;
+import structures.EdgeSorter;
+import structures.Graph;
+import structures.MinHeap;
+import structures.Vertex;
+
+/**
+ * Benchmarks for the MST algorithms, in the style of a JMH suite: every
+ * measurement is preceded by warmup iterations, setup work is kept out of the
+ * timed region, and every result is checked, so a broken algorithm cannot post
+ * a fast time.
+ * 
+ * Usage:
+ * <pre>
+ *   MstBenchmark [suite]                      every engine on generated graph families
+ *   MstBenchmark scaling [file | vertices edges]  parallel Boruvka from 1 thread to all cores
+ *   MstBenchmark heaps                        binary vs pairing heap, MinHeap vs ArcHeap
+ *   MstBenchmark sorting                      edge sorters, and Kruskal with each of them
+ *   MstBenchmark clusters                     lazy MST iterator, cost of a prefix of the arcs
+ *   MstBenchmark density                      Kruskal vs Prim by average degree, and forGraph's choice
+ * </pre>
+ */
+public class MstBenchmark {
+
+	/**
+	 * Untimed iterations before each measurement
+	 */
+	static final int WARMUP = 2;
+
+	/**
+	 * Timed iterations per measurement
+	 */
+	static final int ITERATIONS = 5;
+
+	/**
+	 * Largest number of vertices on which the (quadratic) partial tree list is run
+	 */
+	static final int PARTIAL_TREE_LIMIT = 5000;
+
+	public static void main(String[] args)
+	throws IOException {
+		String mode = args.length > 0 ? args[0] : "suite";
+		if (mode.equals("suite")) {
+			suite();
+		} else if (mode.equals("scaling")) {
+			Graph graph;
+			if (args.length == 2) {
+				graph = new Graph(args[1]);
+			} else {
+				int n = args.length > 2 ? Integer.parseInt(args[1]) : 1000000;
+				int m = args.length > 2 ? Integer.parseInt(args[2]) : 8000000;
+				graph = GraphGenerator.random(n, m, 1000000, 42);
+			}
+			scaling(graph);
+		} else if (mode.equals("heaps")) {
+			meldableHeaps();
+			primitiveHeap(4000000);
+		} else if (mode.equals("clusters")) {
+			clusters(GraphGenerator.random(1000000, 8000000, GraphGenerator.UNIFORM, 42));
+		} else if (mode.equals("density")) {
+			density();
+		} else if (mode.equals("sorting")) {
+			sorting(GraphGenerator.random(1000000, 8000000, GraphGenerator.UNIFORM, 42));
+			sorting(GraphGenerator.random(1000000, 8000000, GraphGenerator.FEW_DISTINCT, 42));
+		} else {
+			System.out.println("Unknown mode: " + mode);
+		}
+	}
+
+	/**
+	 * Times PartialTreeList.initialize and execute, and every other engine, on
+	 * each graph family at a small and a large size, under each weight
+	 * distribution. The partial tree list only runs on the small sizes. All
+	 * engines must agree on the total MST weight of every graph.
+	 */
+	static void suite() {
+		GraphGenerator.Weights[] distributions = {
+			GraphGenerator.UNIFORM, GraphGenerator.FEW_DISTINCT, GraphGenerator.EXPONENTIAL
+		};
+		for (GraphGenerator.Weights weights : distributions) {
+			run("random n=2000 m=20000", GraphGenerator.random(2000, 20000, weights, 1), weights);
+			run("random n=1000000 m=5000000", GraphGenerator.random(1000000, 5000000, weights, 1), weights);
+			run("complete n=300", GraphGenerator.complete(300, weights, 2), weights);
+			run("complete n=3000", GraphGenerator.complete(3000, weights, 2), weights);
+			run("grid 40x40", GraphGenerator.grid(40, 40, weights, 3), weights);
+			run("grid 1000x1000", GraphGenerator.grid(1000, 1000, weights, 3), weights);
+			run("power-law n=2000 k=4", GraphGenerator.powerLaw(2000, 4, weights, 4), weights);
+			run("power-law n=1000000 k=4", GraphGenerator.powerLaw(1000000, 4, weights, 4), weights);
+		}
+	}
+
+	/**
+	 * Runs every measurement of the suite on one graph.
+	 */
+	static void run(String name, final Graph graph, GraphGenerator.Weights weights) {
+		System.out.println(name + ", " + graph.getAdjacency().entryCount()/2 + " edges, weights " + weights + ":");
+		long expected = totalWeight(new KruskalMst().execute(graph));
+
+		if (graph.vertices.length <= PARTIAL_TREE_LIMIT) {
+			report("PartialTreeList.initialize", measure(new Timed() {
+				public long run() {
+					return PartialTreeList.initialize(graph).size();
+				}
+			}));
+			final PartialTreeList[] initialized = new PartialTreeList[1];
+			report("PartialTreeList.execute", measure(new Timed() {
+				public void setup() {
+					initialized[0] = PartialTreeList.initialize(graph);
+				}
+				public long run() {
+					return totalWeight(PartialTreeList.execute(initialized[0]));
+				}
+			}, expected));
+			report("PartialTreeList.execute, pairing heaps", measure(new Timed() {
+				public void setup() {
+					initialized[0] = PartialTreeList.initialize(graph, true);
+				}
+				public long run() {
+					return totalWeight(PartialTreeList.execute(initialized[0]));
+				}
+			}, expected));
+		}
+		for (Map.Entry<String,MstAlgorithm> engine : MstCheck.engines().entrySet()) {
+			final MstAlgorithm alg = engine.getValue();
+			report(engine.getKey(), measure(new Timed() {
+				public long run() {
+					return totalWeight(alg.execute(graph));
+				}
+			}, expected));
+		}
+	}
+
+	/**
+	 * A benchmarked operation, with optional untimed setup before each run.
+	 */
+	static abstract class Timed {
+		void setup() {
+		}
+
+		/**
+		 * Runs the operation.
+		 * 
+		 * @return Result of the operation, checked against the expected result
+		 */
+		abstract long run();
+	}
+
+	/**
+	 * Measures an operation whose result is not checked.
+	 * 
+	 * @return Time of each timed iteration, in nanoseconds
+	 */
+	static long[] measure(Timed op) {
+		return measure(op, Long.MIN_VALUE);
+	}
+
+	/**
+	 * Measures an operation, checking its result on every iteration.
+	 * 
+	 * @param op Operation
+	 * @param expected Expected result, or Long.MIN_VALUE for no check
+	 * @return Time of each timed iteration, in nanoseconds
+	 * @throws IllegalStateException If the operation gives a wrong result
+	 */
+	static long[] measure(Timed op, long expected) {
+		long[] times = new long[ITERATIONS];
+		for (int i=-WARMUP; i < ITERATIONS; i++) {
+			op.setup();
+			long start = System.nanoTime();
+			long result = op.run();
+			long time = System.nanoTime() - start;
+			if (expected != Long.MIN_VALUE && result != expected) {
+				throw new IllegalStateException("MST weight " + result + ", expected " + expected);
+			}
+			if (i >= 0) {
+				times[i] = time;
+			}
+		}
+		return times;
+	}
+
+	/**
+	 * Prints the mean and standard deviation of a measurement, in milliseconds.
+	 */
+	static void report(String name, long[] times) {
+		double mean = 0, var = 0;
+		for (long t : times) {
+			mean += t;
+		}
+		mean /= times.length;
+		for (long t : times) {
+			var += (t - mean) * (t - mean);
+		}
+		double sd = Math.sqrt(var / times.length);
+		System.out.println(String.format("  %-40s %10.3f ms  +- %.3f", name, mean / 1e6, sd / 1e6));
+	}
+
+	/**
+	 * Times Kruskal, then parallel Boruvka with 1, 2, 4, ... threads up to the number of cores.
+	 * 
+	 * @param graph Graph for which the MST is to be found
+	 */
+	static void scaling(Graph graph) {
+		long expected = totalWeight(new KruskalMst().execute(graph));
+		System.out.println("Kruskal: " + time(new KruskalMst(), graph, expected) + " ms");
+		System.out.println("Filter-Kruskal: " + time(new FilterKruskalMst(), graph, expected) + " ms");
+		System.out.println("Prim: " + time(new PrimMst(), graph, expected) + " ms");
+		System.out.println("Partial tree list, primitive heaps: "
+				+ time(new PrimitivePartialTreeMst(), graph, expected) + " ms");
+
+		System.out.println("Parallel Boruvka scaling:");
+		int cores = Runtime.getRuntime().availableProcessors();
+		for (int threads=1; ; threads=Math.min(threads*2, cores)) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long ms;
+			try {
+				ms = time(new ParallelBoruvkaMst(pool), graph, expected);
+			} finally {
+				pool.shutdown();
+			}
+			System.out.println("  " + threads + " threads: " + ms + " ms");
+			if (threads == cores) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Times the partial tree list algorithm with binary heaps and with pairing
+	 * heaps on complete graphs, where every merge moves a large arc queue.
+	 */
+	static void meldableHeaps() {
+		System.out.println("Partial tree list on complete graphs, binary heap vs pairing heap:");
+		for (int n=100; n <= 800; n*=2) {
+			Graph graph = GraphGenerator.complete(n, 1000000, n);
+			long expected = totalWeight(new KruskalMst().execute(graph));
+			long binary = time(new PartialTreeMst(false), graph, expected);
+			long pairing = time(new PartialTreeMst(true), graph, expected);
+			System.out.println("  n=" + n + ": " + binary + " ms vs " + pairing + " ms");
+		}
+	}
+
+	/**
+	 * Fills a heap with random arcs and then empties it, once with MinHeap of Arc
+	 * objects and once with ArcHeap of packed keys, reporting the time and the
+	 * bytes allocated by each.
+	 * 
+	 * @param count Number of arcs
+	 */
+	static void primitiveHeap(int count) {
+		System.out.println("Heap throughput, " + count + " inserts and deleteMins:");
+		Graph graph = GraphGenerator.random(1000, 1000, 1000000, 7);
+		Vertex v1 = graph.vertices[0], v2 = graph.vertices[1];
+		for (int round=0; round < 3; round++) {
+			Random rand = new Random(round);
+			long bytes = allocatedBytes(), start = System.nanoTime();
+			MinHeap<Arc> heap = new MinHeap<Arc>(count);
+			for (int i=0; i < count; i++) {
+				heap.insert(new Arc(v1, v2, rand.nextInt(1000000)));
+			}
+			while (!heap.isEmpty()) {
+				heap.deleteMin();
+			}
+			long genericMs = (System.nanoTime() - start) / 1000000;
+			long genericBytes = allocatedBytes() - bytes;
+
+			rand = new Random(round);
+			bytes = allocatedBytes();
+			start = System.nanoTime();
+			ArcHeap arcHeap = new ArcHeap(count);
+			for (int i=0; i < count; i++) {
+				arcHeap.insert(EdgeList.key(rand.nextInt(1000000), i));
+			}
+			while (!arcHeap.isEmpty()) {
+				arcHeap.deleteMin();
+			}
+			long primitiveMs = (System.nanoTime() - start) / 1000000;
+			long primitiveBytes = allocatedBytes() - bytes;
+
+			System.out.println("  MinHeap<Arc>: " + genericMs + " ms, " + genericBytes / 1024 + " KB allocated;"
+					+ " ArcHeap: " + primitiveMs + " ms, " + primitiveBytes / 1024 + " KB allocated");
+		}
+	}
+
+	/**
+	 * Times the comparison sort and the radix sorts on the edges of a graph, then
+	 * Kruskal with each of them.
+	 * 
+	 * @param graph Graph whose edges are sorted
+	 */
+	static void sorting(Graph graph) {
+		final EdgeList edges = EdgeList.fromGraph(graph);
+		System.out.println("Sorting " + edges.size() + " edges:");
+		String[] names = {"Arrays.sort", "Radix sort", "Parallel radix sort"};
+		EdgeSorter[] sorters = {EdgeSorter.COMPARISON, EdgeSorter.RADIX, EdgeSorter.PARALLEL_RADIX};
+		long expected = totalWeight(new KruskalMst(EdgeSorter.COMPARISON).execute(graph));
+		for (int i=0; i < sorters.length; i++) {
+			final EdgeSorter sorter = sorters[i];
+			report(names[i], measure(new Timed() {
+				long run() {
+					return sorter.sort(edges).length;
+				}
+			}, edges.size()));
+		}
+		for (int i=0; i < sorters.length; i++) {
+			System.out.println("  Kruskal, " + names[i] + ": "
+					+ time(new KruskalMst(sorters[i]), graph, expected) + " ms");
+		}
+	}
+
+	/**
+	 * Times Kruskal and Prim on random graphs of rising average degree, at a few
+	 * sizes, next to the algorithm {@link MstAlgorithm#forGraph(Graph)} picks,
+	 * to check {@link MstAlgorithm#DENSE_DEGREE} against the crossover.
+	 */
+	static void density() {
+		int[][] cases = {
+			{50000, 16}, {50000, 64}, {50000, 96}, {50000, 128},
+			{200000, 16}, {200000, 64}, {200000, 96}, {200000, 128},
+			{500000, 8}, {500000, 32}, {500000, 64}, {500000, 96},
+		};
+		for (int[] c : cases) {
+			int n = c[0], degree = c[1];
+			Graph graph = GraphGenerator.random(n, n / 2 * degree, 1000000, 7);
+			long expected = totalWeight(new KruskalMst().execute(graph));
+			long kruskal = time(new KruskalMst(), graph, expected);
+			long prim = time(new PrimMst(), graph, expected);
+			String chosen = MstAlgorithm.forGraph(graph) instanceof PrimMst ? "Prim" : "Kruskal";
+			System.out.println(String.format("  %7d vertices, degree %4d: Kruskal %6d ms, Prim %6d ms, chosen %s",
+					n, degree, kruskal, prim, chosen));
+		}
+	}
+
+	/**
+	 * Takes ever longer prefixes of the MST arcs from {@link MstIterator}, down
+	 * to k clusters, showing that the edges examined and the time grow with the
+	 * prefix taken rather than with the graph. Kruskal is timed for comparison.
+	 * 
+	 * @param graph Graph to cluster
+	 */
+	static void clusters(Graph graph) {
+		int n = graph.vertices.length;
+		System.out.println("Single-linkage clustering of " + n + " vertices:");
+		long expected = totalWeight(new KruskalMst().execute(graph));
+		System.out.println("  Kruskal, whole forest: " + time(new KruskalMst(), graph, expected) + " ms");
+		for (int taken=1000; ; taken=Math.min(taken*10, n)) {
+			long start = System.nanoTime();
+			MstIterator it = new MstIterator(graph);
+			long built = System.nanoTime();
+			int arcs = 0;
+			while (arcs < taken && it.hasNext()) {
+				it.next();
+				arcs++;
+			}
+			long end = System.nanoTime();
+			System.out.println(String.format("  %7d arcs (%7d clusters): %8d edges examined, heap built in %d ms, arcs taken in %d ms",
+					arcs, it.componentCount(), it.getExamined(), (built - start) / 1000000, (end - built) / 1000000));
+			if (taken == n) {
+				break;
+			}
+		}
+	}
+
+	/**
+	 * Returns the number of bytes allocated so far by the current thread, or 0 if
+	 * the JVM does not track it.
+	 */
+	static long allocatedBytes() {
+		java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean)bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return 0;
+	}
+
+	/**
+	 * Runs an algorithm a few times, checking the weight of its result every time.
+	 * 
+	 * @param alg Algorithm to run
+	 * @param graph Graph for which the MST is to be found
+	 * @param expected Expected total MST weight
+	 * @return Fastest time, in milliseconds
+	 */
+	static long time(MstAlgorithm alg, Graph graph, long expected) {
+		long best = Long.MAX_VALUE;
+		for (int i=0; i < 5; i++) {
+			long start = System.nanoTime();
+			ArrayList<Arc> arcs = alg.execute(graph);
+			best = Math.min(best, System.nanoTime() - start);
+			if (totalWeight(arcs) != expected) {
+				throw new IllegalStateException(alg.getClass().getSimpleName() + " found MST weight "
+						+ totalWeight(arcs) + ", expected " + expected);
+			}
+		}
+		return best / 1000000;
+	}
+
+	/**
+	 * Sums the weights of a list of arcs.
+	 * 
+	 * @param arcs Arcs
+	 * @return Total weight
+	 */
+	static long totalWeight(ArrayList<Arc> arcs) {
+		long total = 0;
+		for (Arc arc : arcs) {
+			total += arc.getWeight();
+		}
+		return total;
+	}
+}
@@ -0,0 +1,224 @@
+package app;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+import structures.Arc;
+import structures.EdgeList;
+import structures.Graph;
+
+/**
+ * Checks that every MST algorithm finds a tree of the same total weight as
+ * {@link PartialTreeList#execute}, on the sample graph files and on generated
+ * graphs. Graphs too large for the partial tree list are checked against
+ * Kruskal instead. Every result, the reference included, must also pass
+ * {@link MstVerifier}. {@link DynamicMst} is checked against Kruskal as it
+ * goes through random updates. Exits with status 1 on any disagreement.
+ */
+public class MstCheck {
+
+	/**
+	 * Sample graph files
+	 */
+	static final String[] SAMPLES = {"graph1.txt", "graph2.txt", "graph3.txt"};
+
+	/**
+	 * Arcs the partial tree list algorithm has always found on the sample
+	 * graphs, in the order it finds them
+	 */
+	static final String[] SAMPLE_ARCS = {
+		"[(A B 4), (C I 2), (D C 7), (E D 9), (F G 2), (H G 1), (B C 8), (F C 4)]",
+		"[(A C 1), (B D 3), (E D 1), (C E 2)]",
+		"[(A B 63), (C A 67), (D Q 97), (E A 85), (F C 93), (G H 64), (I F 135), (J D 183), (K B 42), "
+				+ "(L F 94), (M D 144), (N E 149), (O K 66), (P N 153), (R S 73), (T H 154), (D A 131), "
+				+ "(R C 78), (G D 174)]",
+	};
+
+	public static void main(String[] args)
+	throws IOException {
+		boolean ok = true;
+		for (int i=0; i < SAMPLES.length; i++) {
+			Graph graph = new Graph(SAMPLES[i]);
+			ok &= check(SAMPLES[i], graph, new PartialTreeMst());
+			ok &= sameArcs(SAMPLES[i], graph, SAMPLE_ARCS[i]);
+		}
+		ok &= check("random 300/3000", GraphGenerator.random(300, 3000, 1000, 1), new PartialTreeMst());
+		ok &= check("complete 150", GraphGenerator.complete(150, 1000000, 2), new PartialTreeMst());
+		ok &= check("random 2M/10M", GraphGenerator.random(2000000, 10000000, 1000000, 3), new KruskalMst());
+		ok &= check("random 1M/4M, weights 1..10", GraphGenerator.random(1000000, 4000000, 10, 4), new KruskalMst());
+		ok &= dynamic("dynamic 200/600, weights 1..20", 200, 600, 20, 3000, 5);
+		ok &= dynamic("dynamic 20000/60000", 20000, 60000, 1000000, 60000, 6);
+		System.out.println(ok ? "All algorithms agree" : "MISMATCH");
+		if (!ok) {
+			System.exit(1);
+		}
+	}
+
+	/**
+	 * Returns the algorithms under test, by name.
+	 * 
+	 * @return Map from name to algorithm
+	 */
+	static Map<String,MstAlgorithm> engines() {
+		Map<String,MstAlgorithm> engines = new LinkedHashMap<String,MstAlgorithm>();
+		engines.put("Kruskal", new KruskalMst());
+		engines.put("Filter-Kruskal", new FilterKruskalMst());
+		engines.put("Prim", new PrimMst());
+		engines.put("Chosen by density", new MstAlgorithm() {
+			public ArrayList<Arc> execute(Graph graph) {
+				return MstAlgorithm.forGraph(graph).execute(graph);
+			}
+		});
+		engines.put("Parallel Boruvka", new ParallelBoruvkaMst());
+		engines.put("Partial tree list, primitive heaps", new PrimitivePartialTreeMst());
+		engines.put("Lazy Kruskal iterator", new MstAlgorithm() {
+			public ArrayList<Arc> execute(Graph graph) {
+				ArrayList<Arc> arcs = new ArrayList<Arc>();
+				for (MstIterator it = new MstIterator(graph); it.hasNext(); ) {
+					arcs.add(it.next());
+				}
+				return arcs;
+			}
+		});
+		return engines;
+	}
+
+	/**
+	 * Runs every algorithm on a graph and compares its total weight and arc count
+	 * with those found by a reference algorithm.
+	 * 
+	 * @param name Name of graph, for the report
+	 * @param graph Graph
+	 * @param reference Reference algorithm
+	 * @return True if all algorithms agree with the reference
+	 */
+	static boolean check(String name, Graph graph, MstAlgorithm reference) {
+		ArrayList<Arc> expected = reference.execute(graph);
+		long weight = MstBenchmark.totalWeight(expected);
+		System.out.println(name + ": weight " + weight + ", " + expected.size() + " arcs");
+		boolean ok = verified("reference", graph, expected);
+		for (Map.Entry<String,MstAlgorithm> engine : engines().entrySet()) {
+			ArrayList<Arc> arcs = engine.getValue().execute(graph);
+			long w = MstBenchmark.totalWeight(arcs);
+			if (w != weight || arcs.size() != expected.size()) {
+				System.out.println("  " + engine.getKey() + ": weight " + w + ", " + arcs.size() + " arcs");
+				ok = false;
+			}
+			ok &= verified(engine.getKey(), graph, arcs);
+		}
+		return ok;
+	}
+
+	/**
+	 * Checks that the partial tree list algorithm finds the same arcs, in the
+	 * same order, as it always has on a graph.
+	 * 
+	 * @param name Name of graph, for the report
+	 * @param graph Graph
+	 * @param expected Arc list, as printed
+	 * @return True if the arcs are the expected ones
+	 */
+	static boolean sameArcs(String name, Graph graph, String expected) {
+		String arcs = PartialTreeList.execute(PartialTreeList.initialize(graph)).toString();
+		if (!arcs.equals(expected)) {
+			System.out.println("  " + name + ": partial tree list found " + arcs + ", not " + expected);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Inserts, deletes and reweights random edges of a random graph in a
+	 * {@link DynamicMst}, comparing its forest's total weight and arc count
+	 * with Kruskal's on the edges left, ten times along the way.
+	 * 
+	 * @param name Name of test, for the report
+	 * @param n Number of vertices
+	 * @param m Number of edges to start with
+	 * @param maxWeight Largest weight
+	 * @param updates Number of updates
+	 * @param seed Random seed
+	 * @return True if every comparison agrees
+	 */
+	static boolean dynamic(String name, int n, int m, int maxWeight, int updates, long seed) {
+		Graph graph = GraphGenerator.random(n, m, maxWeight, seed);
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int[] src = new int[m + updates], dst = new int[m + updates], weight = new int[m + updates];
+		int[] live = new int[m + updates], position = new int[m + updates];
+		int count = edges.size(), liveCount = 0;
+		for (int e=0; e < count; e++) {
+			src[e] = edges.getSource(e);
+			dst[e] = edges.getTarget(e);
+			weight[e] = edges.getWeight(e);
+			position[e] = liveCount;
+			live[liveCount++] = e;
+		}
+		DynamicMst mst = new DynamicMst(graph);
+		Random random = new Random(seed);
+		String[] names = new String[n];
+		for (int v=0; v < n; v++) {
+			names[v] = graph.vertices[v].name;
+		}
+		boolean ok = true;
+		for (int i=1; i <= updates; i++) {
+			int op = liveCount == 0 ? 0 : random.nextInt(3);
+			if (op == 0) {
+				int u = random.nextInt(n), v = random.nextInt(n);
+				int w = 1 + random.nextInt(maxWeight);
+				int e = mst.insert(u, v, w);
+				src[e] = u;
+				dst[e] = v;
+				weight[e] = w;
+				position[e] = liveCount;
+				live[liveCount++] = e;
+			} else {
+				int e = live[random.nextInt(liveCount)];
+				if (op == 1) {
+					mst.delete(e);
+					int last = live[--liveCount];
+					live[position[e]] = last;
+					position[last] = position[e];
+				} else {
+					weight[e] = 1 + random.nextInt(maxWeight);
+					mst.reweight(e, weight[e]);
+				}
+			}
+			if (i % (updates / 10) == 0) {
+				EdgeList left = new EdgeList(liveCount);
+				for (int k=0; k < liveCount; k++) {
+					int e = live[k];
+					if (src[e] != dst[e]) {
+						left.add(src[e], dst[e], weight[e]);
+					}
+				}
+				ArrayList<Arc> expected = new KruskalMst().execute(new Graph(names, left));
+				long w = MstBenchmark.totalWeight(expected);
+				ArrayList<Arc> arcs = mst.arcs();
+				if (mst.totalWeight() != w || MstBenchmark.totalWeight(arcs) != w || arcs.size() != expected.size()) {
+					System.out.println("  " + name + ", after " + i + " updates: weight " + mst.totalWeight() + ", "
+							+ arcs.size() + " arcs, not " + w + ", " + expected.size());
+					ok = false;
+				}
+			}
+		}
+		System.out.println(name + ": " + updates + " updates, final weight " + mst.totalWeight());
+		return ok;
+	}
+
+	/**
+	 * Runs the verifier on an algorithm's result, reporting any problem.
+	 * 
+	 * @return True if the result is a minimum spanning forest
+	 */
+	static boolean verified(String name, Graph graph, ArrayList<Arc> arcs) {
+		String problem = MstVerifier.verify(graph, arcs);
+		if (problem != null) {
+			System.out.println("  " + name + ": " + problem);
+			return false;
+		}
+		return true;
+	}
+}
@@ -0,0 +1,188 @@
+package app;
+
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import structures.Arc;
+import structures.ArcHeap;
+import structures.EdgeList;
+import structures.Graph;
+import structures.UnionFind;
+
+/**
+ * Lazy Kruskal: yields the arcs of a minimum spanning forest one at a time, in
+ * nondecreasing weight order, doing only the work needed for the arcs taken.
+ * The edges go into an {@link ArcHeap} built bottom-up in linear time, and each
+ * call to next() pops edges until one joins two components. Taking the first
+ * j arcs costs O(m + e log m), where e is the number of edges popped, instead
+ * of the O(m log m) of a full sort.
+ *
+ * Stopping once the forest has k components, or once arcs get heavier than a
+ * cutoff, gives single-linkage clustering.
+ */
+public class MstIterator implements Iterator<Arc> {
+
+	private Graph graph;
+
+	private EdgeList edges;
+
+	private ArcHeap heap;
+
+	private UnionFind uf;
+
+	/**
+	 * Edge number of the next arc, found but not yet returned or joined in the
+	 * union-find, or -1
+	 */
+	private int pending = -1;
+
+	/**
+	 * Number of edges popped off the heap so far
+	 */
+	private long examined;
+
+	/**
+	 * Initializes the iterator over the arcs of a graph's minimum spanning forest.
+	 *
+	 * @param graph Graph
+	 */
+	public MstIterator(Graph graph) {
+		this.graph = graph;
+		edges = EdgeList.fromGraph(graph);
+		heap = new ArcHeap(edges.size());
+		for (int e=0; e < edges.size(); e++) {
+			heap.add(EdgeList.key(edges.getWeight(e), e));
+		}
+		heap.heapify();
+		uf = new UnionFind(graph.vertices.length);
+	}
+
+	/**
+	 * Returns a sequential stream of the arcs of a graph's minimum spanning
+	 * forest, in nondecreasing weight order. A short-circuiting operation such
+	 * as limit() stops the algorithm.
+	 *
+	 * @param graph Graph
+	 * @return Stream of arcs
+	 */
+	public static Stream<Arc> stream(Graph graph) {
+		return StreamSupport.stream(Spliterators.spliteratorUnknownSize(new MstIterator(graph),
+				Spliterator.ORDERED | Spliterator.NONNULL | Spliterator.DISTINCT), false);
+	}
+
+	/**
+	 * Groups the vertices of a graph into k clusters by single linkage, or into
+	 * its connected components if there are more than k of them.
+	 *
+	 * @param graph Graph
+	 * @param k Number of clusters
+	 * @return Cluster number, from 0, of every vertex
+	 */
+	public static int[] clusters(Graph graph, int k) {
+		MstIterator it = new MstIterator(graph);
+		while (it.componentCount() > k && it.hasNext()) {
+			it.next();
+		}
+		return it.components();
+	}
+
+	/**
+	 * Groups the vertices of a graph into the components left by the spanning
+	 * forest arcs of weight at most a cutoff.
+	 *
+	 * @param graph Graph
+	 * @param cutoff Largest weight of an arc that joins two clusters
+	 * @return Cluster number, from 0, of every vertex
+	 */
+	public static int[] clustersUpTo(Graph graph, int cutoff) {
+		MstIterator it = new MstIterator(graph);
+		while (it.hasNext() && it.peekWeight() <= cutoff) {
+			it.next();
+		}
+		return it.components();
+	}
+
+	public boolean hasNext() {
+		if (pending >= 0) {
+			return true;
+		}
+		while (uf.count() > 1 && !heap.isEmpty()) {
+			int e = EdgeList.keyEdge(heap.deleteMin());
+			examined++;
+			if (uf.find(edges.getSource(e)) != uf.find(edges.getTarget(e))) {
+				pending = e;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	public Arc next() {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		Arc arc = edges.toArc(graph, pending);
+		uf.union(edges.getSource(pending), edges.getTarget(pending));
+		pending = -1;
+		return arc;
+	}
+
+	/**
+	 * Returns the weight of the arc that next() would return.
+	 *
+	 * @return Weight of next arc
+	 * @throws NoSuchElementException If there are no more arcs
+	 */
+	public int peekWeight()
+	throws NoSuchElementException {
+		if (!hasNext()) {
+			throw new NoSuchElementException();
+		}
+		return edges.getWeight(pending);
+	}
+
+	/**
+	 * Returns the number of components of the forest made by the arcs returned
+	 * so far.
+	 *
+	 * @return Number of components
+	 */
+	public int componentCount() {
+		return uf.count();
+	}
+
+	/**
+	 * Returns the number of edges taken off the heap so far, a measure of the
+	 * work done.
+	 *
+	 * @return Number of edges examined
+	 */
+	public long getExamined() {
+		return examined;
+	}
+
+	/**
+	 * Labels the components of the forest made by the arcs returned so far.
+	 *
+	 * @return Component number, from 0, of every vertex
+	 */
+	public int[] components() {
+		int n = graph.vertices.length;
+		int[] label = new int[n], rootLabel = new int[n];
+		Arrays.fill(rootLabel, -1);
+		int count = 0;
+		for (int v=0; v < n; v++) {
+			int r = uf.find(v);
+			if (rootLabel[r] < 0) {
+				rootLabel[r] = count++;
+			}
+			label[v] = rootLabel[r];
+		}
+		return label;
+	}
+}
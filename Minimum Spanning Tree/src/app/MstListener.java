@@ -0,0 +1,54 @@
+package app;
+
+import structures.Arc;
+import structures.PartialTree;
+
+/**
+ * Receives progress events from {@link PartialTreeList#execute(PartialTreeList, MstListener)}.
+ * Events pass references to live algorithm state; a listener that only counts
+ * or ignores them adds no work to the algorithm.
+ */
+public interface MstListener {
+
+	/**
+	 * Listener that ignores every event
+	 */
+	MstListener NONE = new MstListener() {
+		public void loopStarted(int loop, PartialTreeList ptlist) { }
+		public void arcRejected(int loop, Arc arc) { }
+		public void arcAccepted(int loop, Arc arc, PartialTree merged, int frontArcs, int otherArcs,
+				PartialTreeList ptlist) { }
+	};
+
+	/**
+	 * Called at the start of every loop, before the front tree is removed.
+	 * 
+	 * @param loop Loop number, starting at 1
+	 * @param ptlist Partial tree list
+	 */
+	void loopStarted(int loop, PartialTreeList ptlist);
+
+	/**
+	 * Called when an arc is discarded because both its ends are already in the
+	 * same partial tree.
+	 * 
+	 * @param loop Loop number
+	 * @param arc Discarded arc
+	 */
+	void arcRejected(int loop, Arc arc);
+
+	/**
+	 * Called when an arc is added to the MST, after the two trees it joins have
+	 * been merged and the merged tree appended to the list. The merged tree's arc
+	 * heap holds frontArcs + otherArcs arcs.
+	 * 
+	 * @param loop Loop number
+	 * @param arc Accepted arc
+	 * @param merged Merged tree
+	 * @param frontArcs Size of the front tree's arc heap when the trees were merged
+	 * @param otherArcs Size of the other tree's arc heap when the trees were merged
+	 * @param ptlist Partial tree list
+	 */
+	void arcAccepted(int loop, Arc arc, PartialTree merged, int frontArcs, int otherArcs,
+			PartialTreeList ptlist);
+}
@@ -0,0 +1,252 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+import structures.Arc;
+import structures.CsrGraph;
+import structures.EdgeList;
+import structures.Graph;
+import structures.UnionFind;
+import structures.Vertex;
+
+/**
+ * Checks that a list of arcs is a minimum spanning forest of a graph, without
+ * computing a second MST. The arcs must be edges of the graph, with matching
+ * weights; they must not form a cycle; they must connect every component of
+ * the graph, so that no edge joins two of their trees; and no edge of the graph
+ * may be lighter than the heaviest arc on the forest path between its ends
+ * (the cycle property).
+ *
+ * The last check is the costly one. It is answered offline in one depth first
+ * pass over the forest, in the manner of Tarjan's offline LCA algorithm: when
+ * a vertex is finished, its subtrees are already merged into it in a
+ * union-find structure whose links carry the heaviest arc weight up to the
+ * parent, so find() on a finished vertex gives both the lowest common
+ * ancestor with the current vertex and, once that ancestor is finished, the
+ * path maximum. The whole check runs in O(m log n) time at worst.
+ */
+public class MstVerifier {
+
+	/**
+	 * Verifies a minimum spanning forest.
+	 *
+	 * @param graph Graph
+	 * @param arcs Candidate arcs
+	 * @return Null if the arcs are a minimum spanning forest of the graph,
+	 *         otherwise a description of the first problem found
+	 */
+	public static String verify(Graph graph, ArrayList<Arc> arcs) {
+		int n = graph.vertices.length;
+		int k = arcs.size();
+		int[] src = new int[k], dst = new int[k], weight = new int[k];
+		for (int a=0; a < k; a++) {
+			Arc arc = arcs.get(a);
+			src[a] = vertexNumber(graph, arc.getv1());
+			dst[a] = vertexNumber(graph, arc.getv2());
+			weight[a] = arc.getWeight();
+			if (src[a] < 0 || dst[a] < 0) {
+				return "arc " + arc + " has an end that is not in the graph";
+			}
+		}
+
+		UnionFind forest = new UnionFind(n);
+		for (int a=0; a < k; a++) {
+			if (!forest.union(src[a], dst[a])) {
+				return "arc " + arcs.get(a) + " closes a cycle";
+			}
+		}
+		CsrGraph adj = graph.getAdjacency();
+		int missing = findMissing(adj, src, dst, weight);
+		if (missing >= 0) {
+			return "arc " + arcs.get(missing) + " is not an edge of the graph";
+		}
+		return checkCycleProperty(graph, adj, src, dst, weight);
+	}
+
+	/**
+	 * Returns the number of a vertex in the graph, or -1 if it is not there.
+	 */
+	private static int vertexNumber(Graph graph, Vertex v) {
+		if (v.id >= 0 && v.id < graph.vertices.length && graph.vertices[v.id] == v) {
+			return v.id;
+		}
+		return graph.indexOf(v.name);
+	}
+
+	/**
+	 * Looks every arc up among the edges at its lower end, scanning each row of
+	 * the adjacency at most once.
+	 *
+	 * @return Number of an arc with no matching edge, or -1 if all match
+	 */
+	private static int findMissing(CsrGraph adj, int[] src, int[] dst, int[] weight) {
+		int n = adj.vertexCount(), k = src.length;
+		// arcs bucketed by lower end
+		int[] head = new int[n], next = new int[k];
+		Arrays.fill(head, -1);
+		for (int a=0; a < k; a++) {
+			int lo = Math.min(src[a], dst[a]);
+			next[a] = head[lo];
+			head[lo] = a;
+		}
+		// arc waiting at each higher end, for the row being scanned; the forest is
+		// acyclic, so no two arcs share both ends
+		int[] waiting = new int[n];
+		Arrays.fill(waiting, -1);
+		boolean[] found = new boolean[k];
+		for (int u=0; u < n; u++) {
+			if (head[u] < 0) {
+				continue;
+			}
+			for (int a=head[u]; a >= 0; a=next[a]) {
+				waiting[Math.max(src[a], dst[a])] = a;
+			}
+			for (int i=adj.start(u); i < adj.end(u); i++) {
+				int a = waiting[adj.target(i)];
+				if (a >= 0 && weight[a] == adj.weight(i)) {
+					found[a] = true;
+				}
+			}
+			for (int a=head[u]; a >= 0; a=next[a]) {
+				waiting[Math.max(src[a], dst[a])] = -1;
+			}
+		}
+		for (int a=0; a < k; a++) {
+			if (!found[a]) {
+				return a;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks every edge of the graph against the heaviest arc on the forest
+	 * path between its ends. Arcs themselves pass trivially. An edge whose ends
+	 * are in different trees means the forest does not span the graph.
+	 *
+	 * @return Null if every edge passes, otherwise a description
+	 */
+	private static String checkCycleProperty(Graph graph, CsrGraph adj, int[] src, int[] dst, int[] weight) {
+		int n = adj.vertexCount();
+		CsrGraph tree = CsrGraph.build(n, toEdgeList(src, dst, weight));
+
+		// union-find linking each finished vertex to its forest parent; up[v] is
+		// the heaviest arc weight on the path from v to link[v]
+		int[] link = new int[n], up = new int[n];
+		for (int v=0; v < n; v++) {
+			link[v] = v;
+		}
+		int[] path = new int[n];
+		// edges waiting for their lowest common ancestor to finish: the entry
+		// index and the vertex whose row holds it
+		int[] queryHead = new int[n], queryNext = new int[adj.entryCount() / 2 + 1];
+		int[] queryEntry = new int[queryNext.length], queryFrom = new int[queryNext.length];
+		Arrays.fill(queryHead, -1);
+		int queries = 0;
+
+		boolean[] visited = new boolean[n], finished = new boolean[n];
+		int[] stack = new int[n], pos = new int[n], parent = new int[n], parentWeight = new int[n];
+		int[] root = new int[n];
+		for (int r=0; r < n; r++) {
+			if (visited[r]) {
+				continue;
+			}
+			int top = 0;
+			stack[0] = r;
+			visited[r] = true;
+			root[r] = r;
+			parent[r] = -1;
+			pos[r] = tree.start(r);
+			while (top >= 0) {
+				int x = stack[top];
+				if (pos[x] < tree.end(x)) {
+					int i = pos[x]++;
+					int c = tree.target(i);
+					if (!visited[c]) {
+						visited[c] = true;
+						root[c] = r;
+						parent[c] = x;
+						parentWeight[c] = tree.weight(i);
+						pos[c] = tree.start(c);
+						stack[++top] = c;
+					}
+					continue;
+				}
+
+				// x is finished: its children are linked into it, so find() on any
+				// finished vertex y gives its lowest common ancestor with x, and the
+				// heaviest arc from y up to that ancestor. The part of the path from
+				// x up is only complete once the ancestor is finished.
+				finished[x] = true;
+				for (int i=adj.start(x); i < adj.end(x); i++) {
+					int y = adj.target(i);
+					if (y == x || !finished[y]) {
+						continue;
+					}
+					if (root[y] != r) {
+						return "edge (" + graph.vertices[x] + " " + graph.vertices[y] + " " + adj.weight(i)
+								+ ") joins two trees, so the arcs do not span the graph";
+					}
+					int lca = find(link, up, path, y);
+					if (y != lca && adj.weight(i) < up[y]) {
+						return lighter(graph, x, y, adj.weight(i), up[y]);
+					}
+					if (lca != x) {
+						queryEntry[queries] = i;
+						queryFrom[queries] = x;
+						queryNext[queries] = queryHead[lca];
+						queryHead[lca] = queries++;
+					}
+				}
+				for (int q=queryHead[x]; q >= 0; q=queryNext[q]) {
+					int u = queryFrom[q], w = adj.weight(queryEntry[q]);
+					find(link, up, path, u);
+					if (w < up[u]) {
+						return lighter(graph, u, adj.target(queryEntry[q]), w, up[u]);
+					}
+				}
+				if (parent[x] >= 0) {
+					link[x] = parent[x];
+					up[x] = parentWeight[x];
+				}
+				top--;
+			}
+		}
+		return null;
+	}
+
+	private static EdgeList toEdgeList(int[] src, int[] dst, int[] weight) {
+		EdgeList edges = new EdgeList(src.length);
+		for (int a=0; a < src.length; a++) {
+			edges.add(src[a], dst[a], weight[a]);
+		}
+		return edges;
+	}
+
+	private static String lighter(Graph graph, int u, int v, int w, int max) {
+		return "edge (" + graph.vertices[u] + " " + graph.vertices[v] + " " + w
+				+ ") is lighter than an arc, of weight " + max + ", on the tree path between its ends";
+	}
+
+	/**
+	 * Finds the root of a vertex's set, compressing the path and folding the
+	 * weights along it into up[], so that up[v] becomes the heaviest arc between
+	 * v and the root.
+	 */
+	private static int find(int[] link, int[] up, int[] path, int v) {
+		int len = 0;
+		while (link[v] != v) {
+			path[len++] = v;
+			v = link[v];
+		}
+		int root = v;
+		// from the vertex nearest the root down, so each parent is already folded
+		for (int i=len-2; i >= 0; i--) {
+			int x = path[i];
+			up[x] = Math.max(up[x], up[link[x]]);
+			link[x] = root;
+		}
+		return root;
+	}
+}
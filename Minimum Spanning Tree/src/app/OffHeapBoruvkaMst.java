@@ -0,0 +1,96 @@
+package app;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+
+import structures.EdgeList;
+import structures.OffHeapGraph;
+import structures.UnionFind;
+
+/**
+ * Boruvka's algorithm reading an {@link OffHeapGraph} directly, for graphs whose
+ * edges do not fit in Java arrays. Each round scans every row once, finds the
+ * cheapest arc leaving each component, and merges along those arcs, so there
+ * are at most log n rounds. Only vertex-level arrays are kept on the heap.
+ * 
+ * Arcs of equal weight are told apart by their lower, then higher, end vertex
+ * numbers, so that all components agree on one order of the arcs.
+ * 
+ * Usage: OffHeapBoruvkaMst binarygraphfile [scratchfile]
+ */
+public class OffHeapBoruvkaMst {
+
+	public static void main(String[] args)
+	throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: OffHeapBoruvkaMst binarygraphfile [scratchfile]");
+			return;
+		}
+		long start = System.nanoTime();
+		OffHeapGraph graph = OffHeapGraph.build(args[0], args.length > 1 ? new File(args[1]) : null);
+		try {
+			System.out.println("Built " + graph.entryCount() / 2 + " edges off the heap in "
+					+ (System.nanoTime() - start) / 1000000 + " ms");
+			start = System.nanoTime();
+			EdgeList tree = new OffHeapBoruvkaMst().execute(graph);
+			long total = 0;
+			for (int e=0; e < tree.size(); e++) {
+				total += tree.getWeight(e);
+			}
+			System.out.println(tree.size() + " arcs, total weight " + total
+					+ ", in " + (System.nanoTime() - start) / 1000000 + " ms");
+		} finally {
+			graph.close();
+		}
+	}
+
+	/**
+	 * Finds a minimum spanning forest.
+	 * 
+	 * @param graph Graph for which the MST is to be found
+	 * @return Arcs of the forest, with ends given as vertex numbers
+	 */
+	public EdgeList execute(OffHeapGraph graph) {
+		int n = graph.vertexCount();
+		UnionFind uf = new UnionFind(n);
+		EdgeList tree = new EdgeList(Math.max(n - 1, 1));
+		int[] comp = new int[n];
+		// cheapest arc out of each component, by its root: weight and ends
+		int[] bestWeight = new int[n], bestLo = new int[n], bestHi = new int[n];
+
+		while (true) {
+			for (int v=0; v < n; v++) {
+				comp[v] = uf.find(v);
+			}
+			Arrays.fill(bestLo, -1);
+			for (int v=0; v < n; v++) {
+				int c = comp[v];
+				for (long i=graph.start(v), end=graph.end(v); i < end; i++) {
+					int t = graph.target(i);
+					if (comp[t] == c) {
+						continue;
+					}
+					int w = graph.weight(i), lo = Math.min(v, t), hi = Math.max(v, t);
+					if (bestLo[c] < 0 || w < bestWeight[c] || (w == bestWeight[c]
+							&& (lo < bestLo[c] || (lo == bestLo[c] && hi < bestHi[c])))) {
+						bestWeight[c] = w;
+						bestLo[c] = lo;
+						bestHi[c] = hi;
+					}
+				}
+			}
+			boolean merged = false;
+			for (int c=0; c < n; c++) {
+				// two components that chose the same arc add it only once
+				if (bestLo[c] >= 0 && uf.union(bestLo[c], bestHi[c])) {
+					tree.add(bestLo[c], bestHi[c], bestWeight[c]);
+					merged = true;
+				}
+			}
+			if (!merged) {
+				return tree;
+			}
+		}
+	}
+}
@@ -0,0 +1,256 @@
+package app;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import structures.Arc;
+import structures.ConcurrentUnionFind;
+import structures.EdgeList;
+import structures.Graph;
+
+/**
+ * Boruvka's algorithm, run on a fork-join pool. In each round every component
+ * finds its cheapest outgoing edge, in parallel over a flat array of the edges
+ * that still join different components, and then all those edges are contracted
+ * in parallel through a concurrent union-find. Rounds repeat until no edge joins
+ * two components. Ties in weight are broken by edge number, so the edges picked in
+ * a round never form a cycle.
+ */
+public class ParallelBoruvkaMst implements MstAlgorithm {
+
+	/**
+	 * Number of edges or vertices below which a task is not split further
+	 */
+	private static final int GRAIN = 1 << 13;
+
+	/**
+	 * Marks a component that has no outgoing edge this round
+	 */
+	private static final long NONE = Long.MAX_VALUE;
+
+	/**
+	 * Pool on which rounds are run
+	 */
+	private ForkJoinPool pool;
+
+	/**
+	 * Initializes the algorithm to run on the common fork-join pool
+	 */
+	public ParallelBoruvkaMst() {
+		this(ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Initializes the algorithm to run on the given pool, which stays the
+	 * caller's to shut down
+	 *
+	 * @param pool Fork-join pool
+	 */
+	public ParallelBoruvkaMst(ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+	public ArrayList<Arc> execute(Graph graph) {
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int n = graph.vertices.length;
+		Round round = new Round(edges, n);
+		while (round.liveCount > 0) {
+			pool.invoke(new ResetTask(round, 0, n));
+			pool.invoke(new CheapestTask(round, 0, round.liveCount));
+			pool.invoke(new ContractTask(round, 0, n));
+			round.filter(pool);
+		}
+
+		ArrayList<Arc> arcList = new ArrayList<Arc>(Math.max(n-1, 0));
+		for (int e=0; e < edges.size(); e++) {
+			if (round.accepted[e]) {
+				arcList.add(edges.toArc(graph, e));
+			}
+		}
+		return arcList;
+	}
+
+	/**
+	 * State shared by the tasks of all rounds
+	 */
+	private static class Round {
+		EdgeList edges;
+		ConcurrentUnionFind components;
+		/**
+		 * Packed (weight, edge) key of the cheapest outgoing edge of each component root
+		 */
+		AtomicLongArray cheapest;
+		/**
+		 * Edges that joined different components at the start of the round
+		 */
+		int[] live;
+		int liveCount;
+		boolean[] accepted;
+
+		Round(EdgeList edges, int n) {
+			this.edges = edges;
+			components = new ConcurrentUnionFind(n);
+			cheapest = new AtomicLongArray(n);
+			live = new int[edges.size()];
+			for (int e=0; e < live.length; e++) {
+				live[e] = e;
+			}
+			liveCount = live.length;
+			accepted = new boolean[edges.size()];
+		}
+
+		/**
+		 * Drops edges that are now internal to a component: each chunk counts its
+		 * survivors, a prefix sum gives each chunk its output position, and the
+		 * chunks then copy their survivors in parallel.
+		 */
+		void filter(ForkJoinPool pool) {
+			int chunks = (liveCount + GRAIN - 1) / GRAIN;
+			int[] counts = new int[chunks + 1];
+			int[] next = new int[liveCount];
+			pool.invoke(new FilterTask(this, counts, next, 0, chunks, false));
+			for (int c=0, sum=0; c <= chunks; c++) {
+				int t = counts[c];
+				counts[c] = sum;
+				sum += t;
+			}
+			pool.invoke(new FilterTask(this, counts, next, 0, chunks, true));
+			live = next;
+			liveCount = counts[chunks];
+		}
+
+		boolean crosses(int e) {
+			return components.find(edges.getSource(e)) != components.find(edges.getTarget(e));
+		}
+	}
+
+	private static class ResetTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Round round;
+		private int lo, hi;
+
+		ResetTask(Round round, int lo, int hi) {
+			this.round = round; this.lo = lo; this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ResetTask(round, lo, mid), new ResetTask(round, mid, hi));
+				return;
+			}
+			for (int v=lo; v < hi; v++) {
+				round.cheapest.lazySet(v, NONE);
+			}
+		}
+	}
+
+	private static class CheapestTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Round round;
+		private int lo, hi;
+
+		CheapestTask(Round round, int lo, int hi) {
+			this.round = round; this.lo = lo; this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new CheapestTask(round, lo, mid), new CheapestTask(round, mid, hi));
+				return;
+			}
+			EdgeList edges = round.edges;
+			for (int i=lo; i < hi; i++) {
+				int e = round.live[i];
+				int ru = round.components.find(edges.getSource(e));
+				int rv = round.components.find(edges.getTarget(e));
+				if (ru == rv) {
+					continue;
+				}
+				long key = EdgeList.key(edges.getWeight(e), e);
+				lowerTo(round.cheapest, ru, key);
+				lowerTo(round.cheapest, rv, key);
+			}
+		}
+
+		private static void lowerTo(AtomicLongArray cheapest, int i, long key) {
+			long cur;
+			while (key < (cur = cheapest.get(i))) {
+				if (cheapest.compareAndSet(i, cur, key)) {
+					return;
+				}
+			}
+		}
+	}
+
+	private static class ContractTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Round round;
+		private int lo, hi;
+
+		ContractTask(Round round, int lo, int hi) {
+			this.round = round; this.lo = lo; this.hi = hi;
+		}
+
+		protected void compute() {
+			if (hi - lo > GRAIN) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new ContractTask(round, lo, mid), new ContractTask(round, mid, hi));
+				return;
+			}
+			for (int v=lo; v < hi; v++) {
+				long key = round.cheapest.get(v);
+				if (key == NONE) {
+					continue;
+				}
+				int e = EdgeList.keyEdge(key);
+				// both ends may have picked the same edge; only one union succeeds
+				if (round.components.union(round.edges.getSource(e), round.edges.getTarget(e))) {
+					round.accepted[e] = true;
+				}
+			}
+		}
+	}
+
+	private static class FilterTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private Round round;
+		private int[] offsets, next;
+		private int lo, hi;
+		private boolean copy;
+
+		FilterTask(Round round, int[] offsets, int[] next, int lo, int hi, boolean copy) {
+			this.round = round; this.offsets = offsets; this.next = next;
+			this.lo = lo; this.hi = hi; this.copy = copy;
+		}
+
+		protected void compute() {
+			if (hi - lo > 1) {
+				int mid = (lo + hi) >>> 1;
+				invokeAll(new FilterTask(round, offsets, next, lo, mid, copy),
+						new FilterTask(round, offsets, next, mid, hi, copy));
+				return;
+			}
+			int from = lo * GRAIN, to = Math.min(from + GRAIN, round.liveCount);
+			if (copy) {
+				int out = offsets[lo];
+				for (int i=from; i < to; i++) {
+					if (round.crosses(round.live[i])) {
+						next[out++] = round.live[i];
+					}
+				}
+			} else {
+				int count = 0;
+				for (int i=from; i < to; i++) {
+					if (round.crosses(round.live[i])) {
+						count++;
+					}
+				}
+				offsets[lo] = count;
+			}
+		}
+	}
+}
@@ -82,14 +82,28 @@ public class PartialTreeList implements Iterable<PartialTree> {
 	 * @return The initial partial tree list
 	 */
 	public static PartialTreeList initialize(Graph graph) {
+		return initialize(graph, false);
+	}
+
+    /**
+	 * Initializes the algorithm by building single-vertex partial trees, with
+	 * arcs kept in binary heaps or in pairing heaps. Pairing heaps merge in
+	 * constant time, where binary heaps copy and rebuild on every merge.
+	 * 
+	 * @param graph Graph for which the MST is to be found
+	 * @param meldable True to keep arcs in pairing heaps
+	 * @return The initial partial tree list
+	 */
+	public static PartialTreeList initialize(Graph graph, boolean meldable) {
 		PartialTreeList ptl = new PartialTreeList(); //Empty list of trees
+		CsrGraph adj = graph.getAdjacency();
 		for(Vertex v : graph.vertices) { //Separately for each vertex v in the graph
-			PartialTree tree = new PartialTree(v); //Create partial tree T containing only v
-			Vertex.Neighbor n = v.neighbors; 
-			while(n != null) {
-				Arc edge = new Arc(v, n.vertex, n.weight);
+			MinQueue<Arc> arcs = meldable ? new PairingHeap<Arc>() : new MinHeap<Arc>();
+			PartialTree tree = new PartialTree(v, arcs); //Create partial tree T containing only v
+			// most recently read edge first, as in the neighbor list
+			for(int i = adj.end(v.id) - 1; i >= adj.start(v.id); i--) {
+				Arc edge = new Arc(v, graph.vertices[adj.target(i)], adj.weight(i));
 				tree.getArcs().insert(edge);
-				n = n.next;
 			}
 			tree.getRoot().parent = tree.getRoot();
 			ptl.append(tree);
@@ -106,20 +120,29 @@ public class PartialTreeList implements Iterable<PartialTree> {
 	 * @return Array list of all arcs that are in the MST - sequence of arcs is irrelevant
 	 */
 	public static ArrayList<Arc> execute(PartialTreeList ptlist) {
+		return execute(ptlist, MstListener.NONE);
+	}
+
+	/**
+	 * Executes the algorithm on a graph, starting with the initial partial tree list
+	 * for that graph, and reporting progress to a listener
+	 * 
+	 * @param ptlist Initial partial tree list
+	 * @param listener Listener for progress events, MstListener.NONE for none
+	 * @return Array list of all arcs that are in the MST - sequence of arcs is irrelevant
+	 */
+	public static ArrayList<Arc> execute(PartialTreeList ptlist, MstListener listener) {
 		ArrayList<Arc> arcList = new ArrayList<Arc>();
 		int counter = 1;
 		while(ptlist.size() > 1) {
-			System.out.println("Loop " + counter + ": ");
-			System.out.println("PTList before: ");
-			for(PartialTree pt : ptlist) {
-	        	System.out.println(pt.toString());
-	        }
+			listener.loopStarted(counter, ptlist);
 			PartialTree PTX = ptlist.remove(); //Remove first partial tree PTX from L.
-			MinHeap<Arc> PQX = PTX.getArcs(); //MinHeap PQX
+			MinQueue<Arc> PQX = PTX.getArcs(); //MinHeap PQX
 			Arc edge = PQX.deleteMin(); //Get highest-priority arc from PQX
 			while(edge != null) {
 				Vertex v1 = edge.getv1(); Vertex v2 = edge.getv2();
 				if(v1.parent.equals(v2.parent)) {
+					listener.arcRejected(counter, edge);
 					edge = PQX.deleteMin();
 					continue;
 				}
@@ -129,13 +152,11 @@ public class PartialTreeList implements Iterable<PartialTree> {
 				if(v1Tree != null) PTY = v1Tree;
 				else PTY = v2Tree;
 				if(PTY != null) {
+					int frontArcs = PQX.size(), otherArcs = PTY.getArcs().size();
 					PTX.merge(PTY);
 					arcList.add(edge);
 					ptlist.append(PTX);
-					System.out.println("PTList after: ");
-					for(PartialTree pt : ptlist) {
-			        	System.out.println(pt.toString());
-			        }
+					listener.arcAccepted(counter, edge, PTX, frontArcs, otherArcs, ptlist);
 					break;
 				}
 				edge = PQX.deleteMin();
@@ -0,0 +1,37 @@
+package app;
+
+import java.util.ArrayList;
+
+import structures.Arc;
+import structures.Graph;
+
+/**
+ * The partial tree list algorithm, as implemented by {@link PartialTreeList}.
+ */
+public class PartialTreeMst implements MstAlgorithm {
+
+	/**
+	 * True if arcs are kept in pairing heaps instead of binary heaps
+	 */
+	private boolean meldable;
+
+	/**
+	 * Initializes the algorithm to keep arcs in binary heaps
+	 */
+	public PartialTreeMst() {
+		this(false);
+	}
+
+	/**
+	 * Initializes the algorithm to keep arcs in binary heaps or pairing heaps
+	 *
+	 * @param meldable True to keep arcs in pairing heaps
+	 */
+	public PartialTreeMst(boolean meldable) {
+		this.meldable = meldable;
+	}
+
+	public ArrayList<Arc> execute(Graph graph) {
+		return PartialTreeList.execute(PartialTreeList.initialize(graph, meldable));
+	}
+}
@@ -0,0 +1,58 @@
+package app;
+
+import java.util.ArrayList;
+
+import structures.Arc;
+import structures.CsrGraph;
+import structures.Graph;
+import structures.IndexedHeap;
+
+/**
+ * Prim's algorithm with an indexed d-ary heap of the vertices not yet in the
+ * tree, keyed by the weight of their lightest arc to the tree. Every arc scan
+ * is at most one decreaseKey, for O(E log_d V + V d log_d V) time. The arity
+ * is set to the average degree, which makes this close to O(E) on dense graphs.
+ */
+public class PrimMst implements MstAlgorithm {
+
+	public ArrayList<Arc> execute(Graph graph) {
+		CsrGraph adj = graph.getAdjacency();
+		int n = adj.vertexCount();
+		int d = Math.max(2, Math.min(64, adj.entryCount() / Math.max(n, 1)));
+		IndexedHeap heap = new IndexedHeap(n, d);
+		boolean[] inTree = new boolean[n];
+		int[] via = new int[n];   // tree end of each vertex's lightest arc to the tree
+
+		ArrayList<Arc> arcList = new ArrayList<Arc>(Math.max(n-1, 0));
+		for (int start=0; start < n; start++) {
+			if (inTree[start]) {
+				continue;
+			}
+			// each pass grows the tree of one connected component
+			heap.insert(start, Long.MIN_VALUE);
+			via[start] = -1;
+			while (!heap.isEmpty()) {
+				int u = heap.deleteMin();
+				inTree[u] = true;
+				if (via[u] >= 0) {
+					arcList.add(new Arc(graph.vertices[via[u]], graph.vertices[u], (int)heap.keyOf(u)));
+				}
+				for (int i=adj.start(u); i < adj.end(u); i++) {
+					int v = adj.target(i);
+					if (inTree[v]) {
+						continue;
+					}
+					long w = adj.weight(i);
+					if (!heap.contains(v)) {
+						heap.insert(v, w);
+						via[v] = u;
+					} else if (w < heap.keyOf(v)) {
+						heap.decreaseKey(v, w);
+						via[v] = u;
+					}
+				}
+			}
+		}
+		return arcList;
+	}
+}
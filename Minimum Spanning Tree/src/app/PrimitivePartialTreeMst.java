@@ -0,0 +1,101 @@
+package app;
+
+import java.util.ArrayList;
+
+import structures.Arc;
+import structures.ArcHeap;
+import structures.EdgeList;
+import structures.Graph;
+
+/**
+ * The partial tree list algorithm on primitive data. Each partial tree keeps
+ * its arcs in an {@link ArcHeap} of packed (weight, edge) keys, trees are
+ * identified by their root vertex number in a union-find forest, and the list of
+ * trees is a circular int queue. As in {@link PartialTreeList#execute}, the tree
+ * at the front is removed, its lightest arc to another tree is taken, the two
+ * trees are merged, and the merged tree goes to the back. The smaller arc heap
+ * is always merged into the larger.
+ */
+public class PrimitivePartialTreeMst implements MstAlgorithm {
+
+	public ArrayList<Arc> execute(Graph graph) {
+		EdgeList edges = EdgeList.fromGraph(graph);
+		int n = graph.vertices.length;
+
+		int[] degree = new int[n];
+		for (int e=0; e < edges.size(); e++) {
+			degree[edges.getSource(e)]++;
+			degree[edges.getTarget(e)]++;
+		}
+		ArcHeap[] heaps = new ArcHeap[n];
+		for (int v=0; v < n; v++) {
+			heaps[v] = new ArcHeap(degree[v]);
+		}
+		for (int e=0; e < edges.size(); e++) {
+			long key = EdgeList.key(edges.getWeight(e), e);
+			heaps[edges.getSource(e)].add(key);
+			heaps[edges.getTarget(e)].add(key);
+		}
+		for (ArcHeap heap : heaps) {
+			heap.heapify();
+		}
+
+		int[] parent = new int[n];
+		int[] queue = new int[n];
+		for (int v=0; v < n; v++) {
+			parent[v] = v;
+			queue[v] = v;
+		}
+		// queue holds every tree still growing, in slots head, head+1, ... (mod n);
+		// a slot is stale once its vertex has been merged into another tree
+		int head = 0, tail = 0, queued = n, trees = n;
+
+		ArrayList<Arc> arcList = new ArrayList<Arc>(Math.max(n-1, 0));
+		while (trees > 1 && queued > 0) {
+			int x = queue[head];
+			head = (head + 1) % n;
+			queued--;
+			if (parent[x] != x) {
+				continue;
+			}
+			ArcHeap pqx = heaps[x];
+			int y = -1, e = -1;
+			while (!pqx.isEmpty()) {
+				e = EdgeList.keyEdge(pqx.deleteMin());
+				int r1 = find(parent, edges.getSource(e));
+				int r2 = find(parent, edges.getTarget(e));
+				if (r1 != r2) {
+					y = r1 == x ? r2 : r1;
+					break;
+				}
+			}
+			if (y < 0) {
+				// no arcs leave this tree: it is a finished component of a forest
+				trees--;
+				continue;
+			}
+			parent[y] = x;
+			if (heaps[y].size() > pqx.size()) {
+				heaps[y].merge(pqx);
+				heaps[x] = heaps[y];
+			} else {
+				pqx.merge(heaps[y]);
+			}
+			heaps[y] = null;
+			arcList.add(edges.toArc(graph, e));
+			trees--;
+			queue[tail] = x;
+			tail = (tail + 1) % n;
+			queued++;
+		}
+		return arcList;
+	}
+
+	private static int find(int[] parent, int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+}
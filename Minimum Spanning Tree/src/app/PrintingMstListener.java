@@ -0,0 +1,55 @@
+package app;
+
+import java.io.PrintStream;
+
+import structures.Arc;
+import structures.PartialTree;
+
+/**
+ * Traces the partial tree list algorithm by printing the whole list, heaps
+ * included, before every loop and after every merge.
+ */
+public class PrintingMstListener implements MstListener {
+
+	/**
+	 * Stream to print to
+	 */
+	private PrintStream out;
+
+	/**
+	 * Initializes this listener to print to System.out
+	 */
+	public PrintingMstListener() {
+		this(System.out);
+	}
+
+	/**
+	 * Initializes this listener to print to the given stream
+	 * 
+	 * @param out Stream to print to
+	 */
+	public PrintingMstListener(PrintStream out) {
+		this.out = out;
+	}
+
+	public void loopStarted(int loop, PartialTreeList ptlist) {
+		out.println("Loop " + loop + ": ");
+		out.println("PTList before: ");
+		print(ptlist);
+	}
+
+	public void arcRejected(int loop, Arc arc) {
+	}
+
+	public void arcAccepted(int loop, Arc arc, PartialTree merged, int frontArcs, int otherArcs,
+			PartialTreeList ptlist) {
+		out.println("PTList after: ");
+		print(ptlist);
+	}
+
+	private void print(PartialTreeList ptlist) {
+		for (PartialTree pt : ptlist) {
+			out.println(pt.toString());
+		}
+	}
+}
@@ -53,7 +53,8 @@ public class Arc implements Comparable<Arc> {
      * 
      */
     public int compareTo(Arc other) {
-    	return weight - other.weight;
+    	// not weight - other.weight, which overflows for weights far apart
+    	return Integer.compare(weight, other.weight);
     }
 
     /* (non-Javadoc)
@@ -0,0 +1,186 @@
+package structures;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A MIN-heap of arcs packed into longs by {@link EdgeList#key(int, int)}, so
+ * that the weight and edge number of an arc sit together in one array slot and
+ * compare with a single primitive comparison. The heap is 4-ary: the children
+ * of slot k are slots 4k+1 to 4k+4, which keeps a sift-down within one or two
+ * cache lines per level and halves the height of a binary heap. Nothing is
+ * allocated except when the backing array has to grow.
+ */
+public class ArcHeap {
+
+	/**
+	 * Heap-ordered keys, in slots 0 to size-1
+	 */
+	private long[] keys;
+
+	/**
+	 * Number of keys in the heap
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new, empty heap with an initial capacity of 10
+	 */
+	public ArcHeap() {
+		this(10);
+	}
+
+	/**
+	 * Constructs a new, empty heap with the specified initial capacity.
+	 *
+	 * @param cap Initial capacity of the heap.
+	 */
+	public ArcHeap(int cap) {
+		keys = new long[Math.max(cap, 1)];
+		size = 0;
+	}
+
+	private void ensureCapacity(int cap) {
+		if (cap > keys.length) {
+			keys = Arrays.copyOf(keys, Math.max(cap, keys.length + (keys.length >> 1)));
+		}
+	}
+
+	private void siftUp(int k) {
+		long key = keys[k];
+		while (k > 0) {
+			int p = (k-1) >>> 2;
+			if (keys[p] <= key) {
+				break;
+			}
+			keys[k] = keys[p];
+			k = p;
+		}
+		keys[k] = key;
+	}
+
+	private void siftDown(int k) {
+		long key = keys[k];
+		int half = (size + 2) >>> 2;  // slots below this have at least one child
+		while (k < half) {
+			int c = 4*k + 1;
+			int end = Math.min(c + 4, size);
+			int min = c;
+			for (int i=c+1; i < end; i++) {
+				if (keys[i] < keys[min]) {
+					min = i;
+				}
+			}
+			if (keys[min] >= key) {
+				break;
+			}
+			keys[k] = keys[min];
+			k = min;
+		}
+		keys[k] = key;
+	}
+
+	/**
+	 * Inserts a key into the heap.
+	 *
+	 * @param key Packed arc key to insert.
+	 */
+	public void insert(long key) {
+		ensureCapacity(size + 1);
+		keys[size] = key;
+		siftUp(size++);
+	}
+
+	/**
+	 * Appends a key without restoring heap order. Call {@link #heapify()} after
+	 * the last append and before any other operation.
+	 *
+	 * @param key Packed arc key to append.
+	 */
+	public void add(long key) {
+		ensureCapacity(size + 1);
+		keys[size++] = key;
+	}
+
+	/**
+	 * Restores heap order bottom-up, in linear time.
+	 */
+	public void heapify() {
+		for (int k=(size-2) >>> 2; k >= 0 && size > 1; k--) {
+			siftDown(k);
+		}
+	}
+
+	/**
+	 * Removes and returns the min key in the heap.
+	 *
+	 * @return Key (min) at top of heap.
+	 * @throws NoSuchElementException If the heap is empty.
+	 */
+	public long deleteMin()
+	throws NoSuchElementException {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		long min = keys[0];
+		keys[0] = keys[--size];
+		if (size > 1) {
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Returns (but does not remove) the min key in the heap.
+	 *
+	 * @return Key at top of heap.
+	 * @throws NoSuchElementException If heap is empty.
+	 */
+	public long getMin()
+	throws NoSuchElementException {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		return keys[0];
+	}
+
+	/**
+	 * Merges another heap into this one, and empties the other heap. A small heap
+	 * is merged by inserting its keys one at a time; a large one by appending its
+	 * keys and rebuilding this heap bottom-up.
+	 *
+	 * @param other Heap whose keys will be merged into this heap.
+	 */
+	public void merge(ArcHeap other) {
+		ensureCapacity(size + other.size);
+		if (other.size * 4 < size) {
+			for (int i=0; i < other.size; i++) {
+				keys[size] = other.keys[i];
+				siftUp(size++);
+			}
+		} else {
+			System.arraycopy(other.keys, 0, keys, size, other.size);
+			size += other.size;
+			heapify();
+		}
+		other.size = 0;
+	}
+
+	/**
+	 * Returns the number of keys currently stored in the heap.
+	 *
+	 * @return Size of heap.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tells if the heap is empty.
+	 *
+	 * @return <tt>true</tt> if no keys are in heap, <tt>false</tt> otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
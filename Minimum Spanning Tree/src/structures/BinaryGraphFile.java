@@ -0,0 +1,195 @@
+package structures;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * An open graph file in the binary format described in {@link GraphIO}. The
+ * header and vertex names are read when the file is opened; the edges can then
+ * be streamed, one at a time, through memory-mapped windows of the file, so a
+ * file of any size can be read without holding its edges in memory.
+ */
+public class BinaryGraphFile implements Closeable {
+
+	/**
+	 * Name of the file, for error messages
+	 */
+	String file;
+
+	private RandomAccessFile raf;
+
+	/**
+	 * Channel over the file
+	 */
+	FileChannel channel;
+
+	/**
+	 * Vertex names, in vertex number order
+	 */
+	String[] names;
+
+	/**
+	 * Number of edges
+	 */
+	long edgeCount;
+
+	/**
+	 * File position of the first edge record
+	 */
+	long edgeStart;
+
+	/**
+	 * Window over which the edge cursor is moving, and number of edges read
+	 */
+	private IntBuffer window;
+	private long edgesRead;
+
+	/**
+	 * Fields of the edge at the cursor
+	 */
+	private int source, target, weight;
+
+	/**
+	 * Opens a binary graph file and reads its header and vertex names.
+	 *
+	 * @param file Name of graph file
+	 * @throws IOException If the file cannot be read or is not a binary graph file
+	 */
+	public BinaryGraphFile(String file)
+	throws IOException {
+		this.file = file;
+		raf = new RandomAccessFile(file, "r");
+		try {
+			channel = raf.getChannel();
+			DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(raf.getFD())));
+			String notGraph = file + ": not a version " + GraphIO.VERSION + " binary graph file";
+			if (in.readInt() != GraphIO.MAGIC || in.readInt() != GraphIO.VERSION) {
+				throw new IOException(notGraph);
+			}
+			long size = channel.size();
+			int n = in.readInt();
+			edgeCount = in.readLong();
+			// every name takes at least its 4 byte length
+			if (n < 0 || n > (size - GraphIO.HEADER_BYTES) / 4 || edgeCount < 0) {
+				throw new IOException(notGraph);
+			}
+			names = new String[n];
+			edgeStart = GraphIO.HEADER_BYTES;
+			for (int v=0; v < names.length; v++) {
+				int length = in.readInt();
+				if (length < 0 || length > size - edgeStart - 4) {
+					throw new IOException(notGraph);
+				}
+				byte[] bytes = new byte[length];
+				in.readFully(bytes);
+				names[v] = new String(bytes, StandardCharsets.UTF_8);
+				edgeStart += 4 + bytes.length;
+			}
+			if (edgeCount > (size - edgeStart) / GraphIO.EDGE_BYTES) {
+				throw new IOException(file + ": truncated edge section");
+			}
+		} catch (IOException e) {
+			raf.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Returns the vertex names.
+	 *
+	 * @return Names, in vertex number order
+	 */
+	public String[] getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns the number of edges in the file.
+	 *
+	 * @return Number of edges
+	 */
+	public long getEdgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * Maps the window of edge records that starts at a given edge.
+	 *
+	 * @param done Number of the first edge in the window
+	 * @return Int view of the window
+	 */
+	IntBuffer mapEdges(long done)
+	throws IOException {
+		long size = Math.min((edgeCount - done) * GraphIO.EDGE_BYTES, GraphIO.WINDOW);
+		return channel.map(FileChannel.MapMode.READ_ONLY, edgeStart + done*GraphIO.EDGE_BYTES, size).asIntBuffer();
+	}
+
+	/**
+	 * Moves the edge cursor to the next edge.
+	 *
+	 * @return False if all edges have been read
+	 * @throws IOException If the file cannot be read, or an edge has a bad vertex number
+	 */
+	public boolean nextEdge()
+	throws IOException {
+		if (edgesRead == edgeCount) {
+			return false;
+		}
+		if (window == null || !window.hasRemaining()) {
+			window = mapEdges(edgesRead);
+		}
+		source = window.get();
+		target = window.get();
+		weight = window.get();
+		edgesRead++;
+		checkVertex(source);
+		checkVertex(target);
+		return true;
+	}
+
+	void checkVertex(int v)
+	throws IOException {
+		if (v < 0 || v >= names.length) {
+			throw new IOException(file + ": vertex number " + v + " out of range");
+		}
+	}
+
+	/**
+	 * Returns the number of the vertex at one end of the edge at the cursor.
+	 *
+	 * @return Vertex number
+	 */
+	public int getSource() {
+		return source;
+	}
+
+	/**
+	 * Returns the number of the vertex at the other end of the edge at the cursor.
+	 *
+	 * @return Vertex number
+	 */
+	public int getTarget() {
+		return target;
+	}
+
+	/**
+	 * Returns the weight of the edge at the cursor.
+	 *
+	 * @return Weight
+	 */
+	public int getWeight() {
+		return weight;
+	}
+
+	public void close()
+	throws IOException {
+		raf.close();
+	}
+}
@@ -0,0 +1,83 @@
+package structures;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Disjoint sets over the integers 0..n-1 that can be searched and merged by
+ * several threads at once. Roots are linked with compare-and-set, always
+ * making the higher-numbered root a child of the lower-numbered one, and
+ * finds compress paths by halving.
+ */
+public class ConcurrentUnionFind {
+
+	/**
+	 * Parent of each element; a root is its own parent.
+	 */
+	private AtomicIntegerArray parent;
+
+	/**
+	 * Initializes n singleton sets.
+	 *
+	 * @param n Number of elements
+	 */
+	public ConcurrentUnionFind(int n) {
+		parent = new AtomicIntegerArray(n);
+		for (int i=0; i < n; i++) {
+			parent.set(i, i);
+		}
+	}
+
+	/**
+	 * Finds the representative of the set containing an element. The result
+	 * may be out of date if another thread is merging the set at the same time.
+	 *
+	 * @param x Element
+	 * @return Representative of the set containing x
+	 */
+	public int find(int x) {
+		int p = parent.get(x);
+		while (p != x) {
+			int gp = parent.get(p);
+			if (gp != p) {
+				// any ancestor is a valid parent, so losing this race is harmless
+				parent.compareAndSet(x, p, gp);
+			}
+			x = p;
+			p = parent.get(x);
+		}
+		return x;
+	}
+
+	/**
+	 * Merges the sets containing two elements.
+	 *
+	 * @param x First element
+	 * @param y Second element
+	 * @return True if this call merged the sets, false if x and y were already in the same set
+	 */
+	public boolean union(int x, int y) {
+		while (true) {
+			int rx = find(x), ry = find(y);
+			if (rx == ry) {
+				return false;
+			}
+			if (rx < ry) {
+				int t = rx; rx = ry; ry = t;
+			}
+			if (parent.compareAndSet(rx, rx, ry)) {
+				return true;
+			}
+		}
+	}
+
+	/**
+	 * Tells if two elements are in the same set. Only reliable when no merges are in progress.
+	 *
+	 * @param x First element
+	 * @param y Second element
+	 * @return True if x and y are in the same set
+	 */
+	public boolean connected(int x, int y) {
+		return find(x) == find(y);
+	}
+}
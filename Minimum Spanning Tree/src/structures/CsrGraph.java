@@ -0,0 +1,145 @@
+package structures;
+
+/**
+ * Adjacency of a weighted, undirected graph in compressed sparse row form. The
+ * neighbors of vertex v are the entries offsets[v] up to (not including)
+ * offsets[v+1] of the targets and weights arrays. Every undirected edge has one
+ * entry in the row of each of its ends, so an edge costs 16 bytes in all,
+ * instead of two linked Neighbor objects.
+ */
+public class CsrGraph {
+
+	/**
+	 * Start of each vertex's row; offsets[n] is the total number of entries.
+	 */
+	int[] offsets;
+
+	/**
+	 * Neighbor vertex number of each entry.
+	 */
+	int[] targets;
+
+	/**
+	 * Edge weight of each entry.
+	 */
+	int[] weights;
+
+	/**
+	 * Initializes a CSR graph from already filled arrays.
+	 *
+	 * @param offsets Row starts, of length n+1
+	 * @param targets Neighbor vertex numbers
+	 * @param weights Edge weights
+	 */
+	public CsrGraph(int[] offsets, int[] targets, int[] weights) {
+		this.offsets = offsets;
+		this.targets = targets;
+		this.weights = weights;
+	}
+
+	/**
+	 * Builds the CSR form of a graph with a counting pass over the edges: the
+	 * degree of every vertex is counted, a prefix sum turns the degrees into row
+	 * starts, and a second pass drops every edge into the rows of both its ends.
+	 * Within a row, neighbors appear in edge list order.
+	 *
+	 * @param n Number of vertices
+	 * @param edges Edges, with endpoints given as vertex numbers
+	 * @return CSR graph
+	 */
+	public static CsrGraph build(int n, EdgeList edges) {
+		return build(n, new EdgeList[] {edges});
+	}
+
+	/**
+	 * Builds the CSR form of a graph whose edges are split over several lists,
+	 * as if the lists had been concatenated in order, without copying them.
+	 *
+	 * @param n Number of vertices
+	 * @param parts Edge lists, with endpoints given as vertex numbers
+	 * @return CSR graph
+	 */
+	public static CsrGraph build(int n, EdgeList[] parts) {
+		int[] offsets = new int[n+1];
+		for (EdgeList edges : parts) {
+			for (int e=0; e < edges.size; e++) {
+				offsets[edges.src[e]+1]++;
+				offsets[edges.dst[e]+1]++;
+			}
+		}
+		for (int v=0; v < n; v++) {
+			offsets[v+1] += offsets[v];
+		}
+		int[] next = java.util.Arrays.copyOf(offsets, n);
+		int[] targets = new int[offsets[n]];
+		int[] weights = new int[offsets[n]];
+		for (EdgeList edges : parts) {
+			for (int e=0; e < edges.size; e++) {
+				int u = edges.src[e], v = edges.dst[e], w = edges.weight[e];
+				targets[next[u]] = v;
+				weights[next[u]++] = w;
+				targets[next[v]] = u;
+				weights[next[v]++] = w;
+			}
+		}
+		return new CsrGraph(offsets, targets, weights);
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 *
+	 * @return Number of vertices
+	 */
+	public int vertexCount() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * Returns the number of entries over all rows, which is twice the number of edges.
+	 *
+	 * @return Number of entries
+	 */
+	public int entryCount() {
+		return offsets[offsets.length - 1];
+	}
+
+	/**
+	 * Returns the index of the first entry in a vertex's row.
+	 *
+	 * @param v Vertex number
+	 * @return First entry index
+	 */
+	public int start(int v) {
+		return offsets[v];
+	}
+
+	/**
+	 * Returns the index one past the last entry in a vertex's row.
+	 *
+	 * @param v Vertex number
+	 * @return End entry index
+	 */
+	public int end(int v) {
+		return offsets[v+1];
+	}
+
+	/**
+	 * Returns the neighbor vertex number of an entry.
+	 *
+	 * @param i Entry index
+	 * @return Neighbor vertex number
+	 */
+	public int target(int i) {
+		return targets[i];
+	}
+
+	/**
+	 * Returns the edge weight of an entry.
+	 *
+	 * @param i Entry index
+	 * @return Edge weight
+	 */
+	public int weight(int i) {
+		return weights[i];
+	}
+}
@@ -0,0 +1,281 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A minimum spanning forest of a graph from which edges are only ever deleted,
+ * kept with the level scheme of Holm, de Lichtenberg and Thorup. Deleting an
+ * edge takes O(log^2 n) amortized time, n being the number of vertices, the
+ * replacement for a deleted tree edge included.
+ *
+ * Every edge has a level between 0 and log n, and for each level i there is
+ * an Euler tour forest of the tree edges of level i or more, in which no tree
+ * has more than n/2^i vertices. To replace a deleted tree edge, the levels
+ * are searched from its own down to 0. At each level the smaller of the two
+ * halves has its tree edges of that level moved up a level, and then has its
+ * non-tree edges of that level looked at lightest first: one with both ends
+ * in the half moves up a level, and the first one that leaves the half is
+ * the replacement. As an edge can only move up log n times, the searching is
+ * paid for by the edges' rises.
+ *
+ * Vertices are numbered 0..n-1, and edges get slot numbers in the order they
+ * are added. Non-tree edges are told apart in weight only by their slots, so
+ * they have to be added lightest first; the weights of tree edges are never
+ * needed.
+ */
+public class DecrementalMsf {
+
+	/**
+	 * Number of vertices, and highest level
+	 */
+	private int n, top;
+
+	/**
+	 * Number of edge slots used
+	 */
+	private int edges;
+
+	/**
+	 * Ends and level of each edge slot
+	 */
+	private int[] u, v;
+	private byte[] level;
+
+	/**
+	 * Whether each slot holds a live edge, and whether that edge is a tree edge
+	 */
+	private boolean[] live, tree;
+
+	/**
+	 * Tree edge number of each tree slot, slot of each tree edge number, and
+	 * unused tree edge numbers; tree edge t is the edge nodes n+2t and n+2t+1
+	 * of the Euler tour forests
+	 */
+	private int[] treeNumber, treeSlot, freeNumbers;
+	private int freeCount;
+
+	/**
+	 * Euler tour forest of each level, made when first needed. Tree edge
+	 * nodes of the edge's own level are marked, and every vertex node holds
+	 * the lightest slot among its non-tree edges of that level.
+	 */
+	private EulerTourForest[] forest;
+
+	/**
+	 * Binary heaps of the non-tree edge slots at each vertex, by level. Slots
+	 * that have since left the level are dropped when they reach the top.
+	 */
+	private int[][][] heap;
+	private int[][] heapSize;
+
+	/**
+	 * Initializes a graph with no edges.
+	 *
+	 * @param n Number of vertices
+	 * @param capacity Number of edges that will be added
+	 */
+	public DecrementalMsf(int n, int capacity) {
+		this.n = n;
+		top = 31 - Integer.numberOfLeadingZeros(Math.max(n, 1));
+		u = new int[capacity];
+		v = new int[capacity];
+		level = new byte[capacity];
+		live = new boolean[capacity];
+		tree = new boolean[capacity];
+		treeNumber = new int[capacity];
+		Arrays.fill(treeNumber, -1);
+		treeSlot = new int[Math.max(n-1, 0)];
+		freeNumbers = new int[treeSlot.length];
+		for (int t=treeSlot.length-1; t >= 0; t--) {
+			freeNumbers[freeCount++] = t;
+		}
+		forest = new EulerTourForest[top+1];
+		heap = new int[top+1][][];
+		heapSize = new int[top+1][];
+	}
+
+	/**
+	 * Adds a tree edge at level 0. Its ends must not yet be connected.
+	 *
+	 * @param x Vertex at one end
+	 * @param y Vertex at the other end
+	 * @return Slot of the edge
+	 */
+	public int addTreeEdge(int x, int y) {
+		int s = add(x, y);
+		link(s, 0);
+		forest(0).setMark(n + 2*treeNumber[s], true);
+		return s;
+	}
+
+	/**
+	 * Adds a non-tree edge at level 0. It must be no lighter than the non-tree
+	 * edges added before it, and no lighter than any tree edge on the path
+	 * between its ends.
+	 *
+	 * @param x Vertex at one end
+	 * @param y Vertex at the other end
+	 * @return Slot of the edge
+	 */
+	public int addNonTreeEdge(int x, int y) {
+		int s = add(x, y);
+		push(s, 0);
+		return s;
+	}
+
+	private int add(int x, int y) {
+		int s = edges++;
+		u[s] = x;
+		v[s] = y;
+		live[s] = true;
+		return s;
+	}
+
+	/**
+	 * Tells if a slot holds a tree edge.
+	 *
+	 * @param s Slot
+	 * @return True if the edge is live and in the forest
+	 */
+	public boolean isTree(int s) {
+		return live[s] && tree[s];
+	}
+
+	/**
+	 * Deletes an edge. If it was a tree edge, the lightest edge that reconnects
+	 * the two halves, if any, becomes a tree edge in its place.
+	 *
+	 * @param s Slot of the edge
+	 * @return Slot of the replacement, or -1 if there is none
+	 */
+	public int delete(int s) {
+		live[s] = false;
+		if (!tree[s]) {
+			refresh(u[s], level[s]);
+			refresh(v[s], level[s]);
+			return -1;
+		}
+		int l = level[s];
+		int t = treeNumber[s];
+		for (int i=0; i <= l; i++) {
+			forest[i].cut(n + 2*t, n + 2*t + 1);
+		}
+		treeNumber[s] = -1;
+		freeNumbers[freeCount++] = t;
+		for (int i=l; i >= 0; i--) {
+			EulerTourForest f = forest[i];
+			int small = f.size(u[s]) <= f.size(v[s]) ? u[s] : v[s];
+			// the smaller half's tree edges of this level move up
+			for (int x=f.findMarked(small); x >= 0; x=f.findMarked(small)) {
+				int e = treeSlot[(x - n) >> 1];
+				f.setMark(x, false);
+				level[e] = (byte)(i+1);
+				link(e, i+1);
+				forest[i+1].setMark(n + 2*treeNumber[e], true);
+			}
+			// and so do its non-tree edges of this level, lightest first, up to the replacement
+			for (int x=f.findMin(small); x >= 0; x=f.findMin(small)) {
+				int e = heap[i][x][0];
+				int other = u[e] == x ? v[e] : u[e];
+				if (f.connected(other, small)) {
+					level[e] = (byte)(i+1);
+					refresh(x, i);
+					refresh(other, i);
+					push(e, i+1);
+				} else {
+					tree[e] = true;
+					refresh(x, i);
+					refresh(other, i);
+					for (int j=0; j <= i; j++) {
+						link(e, j);
+					}
+					f.setMark(n + 2*treeNumber[e], true);
+					return e;
+				}
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Links a tree edge into the forest of one level, numbering it first if
+	 * it has no number yet.
+	 */
+	private void link(int s, int i) {
+		if (treeNumber[s] < 0) {
+			int t = freeNumbers[--freeCount];
+			treeNumber[s] = t;
+			treeSlot[t] = s;
+			tree[s] = true;
+		}
+		int t = treeNumber[s];
+		forest(i).link(u[s], v[s], n + 2*t, n + 2*t + 1);
+	}
+
+	private EulerTourForest forest(int i) {
+		if (forest[i] == null) {
+			forest[i] = new EulerTourForest(n, n + 2*treeSlot.length);
+		}
+		return forest[i];
+	}
+
+	/**
+	 * Puts a non-tree edge into the heaps of its ends at a level.
+	 */
+	private void push(int s, int i) {
+		if (heap[i] == null) {
+			heap[i] = new int[n][];
+			heapSize[i] = new int[n];
+		}
+		siftUp(u[s], i, s);
+		siftUp(v[s], i, s);
+	}
+
+	private void siftUp(int x, int i, int s) {
+		int[] h = heap[i][x];
+		int k = heapSize[i][x]++;
+		if (h == null) {
+			h = heap[i][x] = new int[4];
+		} else if (k == h.length) {
+			h = heap[i][x] = Arrays.copyOf(h, 2*k);
+		}
+		while (k > 0 && h[(k-1) >> 1] > s) {
+			h[k] = h[(k-1) >> 1];
+			k = (k-1) >> 1;
+		}
+		h[k] = s;
+		if (k == 0) {
+			forest(i).setValue(x, s);
+		}
+	}
+
+	/**
+	 * Drops the slots at the top of a vertex's heap that are no longer non-tree
+	 * edges of the heap's level, and sets the vertex's value to the new top.
+	 */
+	private void refresh(int x, int i) {
+		if (heap[i] == null || heap[i][x] == null) {
+			return;
+		}
+		int[] h = heap[i][x];
+		int size = heapSize[i][x];
+		while (size > 0 && (!live[h[0]] || tree[h[0]] || level[h[0]] != i)) {
+			int s = h[--size];
+			int k = 0;
+			while (2*k + 1 < size) {
+				int c = 2*k + 1;
+				if (c + 1 < size && h[c+1] < h[c]) {
+					c++;
+				}
+				if (h[c] >= s) {
+					break;
+				}
+				h[k] = h[c];
+				k = c;
+			}
+			h[k] = s;
+		}
+		heapSize[i][x] = size;
+		forest[i].setValue(x, size > 0 ? h[0] : EulerTourForest.NONE);
+	}
+}
@@ -0,0 +1,198 @@
+package structures;
+
+/**
+ * A flat list of undirected, weighted edges, stored as parallel int arrays of
+ * endpoint indices and weights. Each undirected edge of a graph appears exactly once.
+ */
+public class EdgeList {
+
+    /**
+     * Index of the vertex at one end of each edge.
+     */
+    int[] src;
+
+    /**
+     * Index of the vertex at the other end of each edge.
+     */
+    int[] dst;
+
+    /**
+     * Weight of each edge.
+     */
+    int[] weight;
+
+    /**
+     * Number of edges in the list.
+     */
+    int size;
+
+    /**
+     * Constructs a new, empty edge list with the specified initial capacity.
+     *
+     * @param cap Initial capacity of the list.
+     */
+    public EdgeList(int cap) {
+    	cap = Math.max(cap, 1);
+    	src = new int[cap];
+    	dst = new int[cap];
+    	weight = new int[cap];
+    	size = 0;
+    }
+
+    /**
+     * Builds the edge list of a graph. The adjacency holds every edge twice,
+     * once from each end; only the copy seen from the lower-numbered end is kept.
+     * Self loops can never be part of a spanning tree, and are dropped.
+     *
+     * @param graph Graph whose edges are to be listed
+     * @return Edge list with one entry per undirected edge
+     */
+    public static EdgeList fromGraph(Graph graph) {
+    	CsrGraph adj = graph.adjacency;
+    	EdgeList edges = new EdgeList(adj.entryCount() / 2);
+    	for (int v=0; v < adj.vertexCount(); v++) {
+    		for (int i=adj.offsets[v]; i < adj.offsets[v+1]; i++) {
+    			if (v < adj.targets[i]) {
+    				edges.add(v, adj.targets[i], adj.weights[i]);
+    			}
+    		}
+    	}
+    	return edges;
+    }
+
+    /**
+     * Appends an edge to the end of the list.
+     *
+     * @param u Index of the vertex at one end of the edge
+     * @param v Index of the vertex at the other end of the edge
+     * @param w Weight of the edge
+     */
+    public void add(int u, int v, int w) {
+    	if (size == src.length) {
+    		int cap = src.length + (src.length >> 1) + 1;
+    		src = java.util.Arrays.copyOf(src, cap);
+    		dst = java.util.Arrays.copyOf(dst, cap);
+    		weight = java.util.Arrays.copyOf(weight, cap);
+    	}
+    	src[size] = u;
+    	dst[size] = v;
+    	weight[size] = w;
+    	size++;
+    }
+
+    /**
+     * Empties the list, keeping its capacity.
+     */
+    public void clear() {
+    	size = 0;
+    }
+
+    /**
+     * Returns the number of edges in the list.
+     *
+     * @return Number of edges
+     */
+    public int size() {
+    	return size;
+    }
+
+    /**
+     * Returns the index of the vertex at one end of an edge.
+     *
+     * @param e Edge number
+     * @return First endpoint index
+     */
+    public int getSource(int e) {
+    	return src[e];
+    }
+
+    /**
+     * Returns the index of the vertex at the other end of an edge.
+     *
+     * @param e Edge number
+     * @return Second endpoint index
+     */
+    public int getTarget(int e) {
+    	return dst[e];
+    }
+
+    /**
+     * Returns the weight of an edge.
+     *
+     * @param e Edge number
+     * @return Weight of edge
+     */
+    public int getWeight(int e) {
+    	return weight[e];
+    }
+
+    /**
+     * Makes an Arc for an edge in this list, with endpoints taken from the given graph.
+     *
+     * @param graph Graph from which this list was built
+     * @param e Edge number
+     * @return Arc for the edge
+     */
+    public Arc toArc(Graph graph, int e) {
+    	return new Arc(graph.vertices[src[e]], graph.vertices[dst[e]], weight[e]);
+    }
+
+    /**
+     * Packs an edge weight and edge number into a single sort key. Keys compare
+     * (as signed longs) first by weight, then by edge number.
+     *
+     * @param weight Weight of edge
+     * @param e Edge number
+     * @return Packed key
+     */
+    public static long key(int weight, int e) {
+    	return ((long)weight << 32) | (e & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Makes the packed sort key of every edge in the list, in edge number order.
+     *
+     * @return Array of keys, indexed by edge number
+     */
+    public long[] keys() {
+    	long[] keys = new long[size];
+    	for (int e=0; e < size; e++) {
+    		keys[e] = key(weight[e], e);
+    	}
+    	return keys;
+    }
+
+    /**
+     * Extracts the edge numbers from an array of packed sort keys.
+     *
+     * @param keys Keys made by {@link #key(int, int)}
+     * @return Array of edge numbers, in key array order
+     */
+    public static int[] keyEdges(long[] keys) {
+    	int[] edges = new int[keys.length];
+    	for (int i=0; i < keys.length; i++) {
+    		edges[i] = keyEdge(keys[i]);
+    	}
+    	return edges;
+    }
+
+    /**
+     * Extracts the edge number from a packed sort key.
+     *
+     * @param key Key made by {@link #key(int, int)}
+     * @return Edge number
+     */
+    public static int keyEdge(long key) {
+    	return (int)key;
+    }
+
+    /**
+     * Extracts the weight from a packed sort key.
+     *
+     * @param key Key made by {@link #key(int, int)}
+     * @return Weight of edge
+     */
+    public static int keyWeight(long key) {
+    	return (int)(key >> 32);
+    }
+}
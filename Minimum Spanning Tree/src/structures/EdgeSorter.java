@@ -0,0 +1,55 @@
+package structures;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Strategy for ordering the edges of an edge list by weight, used by MST
+ * algorithms that scan edges from lightest to heaviest.
+ */
+public interface EdgeSorter {
+
+	/**
+	 * Sorts packed (weight, edge number) keys with a comparison sort.
+	 */
+	EdgeSorter COMPARISON = new EdgeSorter() {
+		public int[] sort(EdgeList edges) {
+			long[] keys = edges.keys();
+			Arrays.sort(keys);
+			return EdgeList.keyEdges(keys);
+		}
+	};
+
+	/**
+	 * Sorts packed (weight, edge number) keys with a radix sort on the weight
+	 * bytes, in linear time.
+	 */
+	EdgeSorter RADIX = new EdgeSorter() {
+		public int[] sort(EdgeList edges) {
+			long[] keys = edges.keys();
+			RadixSort.sortByWeight(keys);
+			return EdgeList.keyEdges(keys);
+		}
+	};
+
+	/**
+	 * Sorts packed (weight, edge number) keys with a radix sort on the weight
+	 * bytes, in parallel on the common fork-join pool.
+	 */
+	EdgeSorter PARALLEL_RADIX = new EdgeSorter() {
+		public int[] sort(EdgeList edges) {
+			long[] keys = edges.keys();
+			RadixSort.parallelSortByWeight(keys, ForkJoinPool.commonPool());
+			return EdgeList.keyEdges(keys);
+		}
+	};
+
+	/**
+	 * Returns the edge numbers of the list in order of nondecreasing weight.
+	 * Edges of equal weight appear in increasing order of edge number.
+	 *
+	 * @param edges Edges to be ordered
+	 * @return Array of edge numbers, lightest edge first
+	 */
+	int[] sort(EdgeList edges);
+}
@@ -0,0 +1,320 @@
+package structures;
+
+/**
+ * A forest of Euler tour trees. Nodes 0..vertices-1 stand for vertices, and
+ * every tree edge is a pair of further nodes, one for each direction in which
+ * the tour crosses it. A tree is kept as its tour, a cyclic sequence holding
+ * each of its vertices once and each of its edge nodes once, stored in a splay
+ * tree. Every operation takes O(log n) amortized time.
+ *
+ * Each node may carry a mark and an int value, and every splay subtree knows
+ * its number of vertices, whether it holds a marked node, and its smallest
+ * value, so that a tree can be asked for its size, a marked node or the node
+ * of smallest value.
+ */
+public class EulerTourForest {
+
+	/**
+	 * Value of a node that has none
+	 */
+	public static final int NONE = Integer.MAX_VALUE;
+
+	/**
+	 * Number of vertex nodes
+	 */
+	private int vertices;
+
+	/**
+	 * Left and right splay children, and splay parent; -1 for none
+	 */
+	private int[] left, right, parent;
+
+	/**
+	 * Number of vertex nodes in each splay subtree
+	 */
+	private int[] size;
+
+	/**
+	 * Mark of each node, and whether each splay subtree holds a marked node
+	 */
+	private boolean[] mark, marked;
+
+	/**
+	 * Value of each node, and smallest value in each splay subtree
+	 */
+	private int[] value, min;
+
+	/**
+	 * Initializes single-vertex trees for the vertex nodes, and leaves the edge
+	 * nodes unused.
+	 *
+	 * @param vertices Number of vertex nodes, numbered 0..vertices-1
+	 * @param nodes Total number of nodes, edge nodes included
+	 */
+	public EulerTourForest(int vertices, int nodes) {
+		this.vertices = vertices;
+		left = new int[nodes];
+		right = new int[nodes];
+		parent = new int[nodes];
+		size = new int[nodes];
+		mark = new boolean[nodes];
+		marked = new boolean[nodes];
+		value = new int[nodes];
+		min = new int[nodes];
+		for (int x=0; x < nodes; x++) {
+			left[x] = right[x] = parent[x] = -1;
+			size[x] = x < vertices ? 1 : 0;
+			value[x] = min[x] = NONE;
+		}
+	}
+
+	private void update(int x) {
+		int l = left[x], r = right[x];
+		int s = x < vertices ? 1 : 0;
+		boolean m = mark[x];
+		int v = value[x];
+		if (l >= 0) {
+			s += size[l];
+			m |= marked[l];
+			v = Math.min(v, min[l]);
+		}
+		if (r >= 0) {
+			s += size[r];
+			m |= marked[r];
+			v = Math.min(v, min[r]);
+		}
+		size[x] = s;
+		marked[x] = m;
+		min[x] = v;
+	}
+
+	private void rotate(int x) {
+		int p = parent[x], g = parent[p];
+		if (g >= 0) {
+			if (left[g] == p) {
+				left[g] = x;
+			} else {
+				right[g] = x;
+			}
+		}
+		parent[x] = g;
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] >= 0) {
+				parent[right[x]] = p;
+			}
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] >= 0) {
+				parent[left[x]] = p;
+			}
+			left[x] = p;
+		}
+		parent[p] = x;
+		update(p);
+		update(x);
+	}
+
+	/**
+	 * Splays a node to the root of its splay tree.
+	 */
+	private void splay(int x) {
+		while (parent[x] >= 0) {
+			int p = parent[x], g = parent[p];
+			if (g >= 0) {
+				rotate((left[g] == p) == (left[p] == x) ? p : x);
+			}
+			rotate(x);
+		}
+	}
+
+	/**
+	 * Joins two tours, the second after the first, either possibly empty (-1).
+	 *
+	 * @return Root of the joined splay tree, or -1 if both are empty
+	 */
+	private int join(int x, int y) {
+		if (x < 0) {
+			return y;
+		}
+		if (y < 0) {
+			return x;
+		}
+		splay(x);
+		while (right[x] >= 0) {
+			x = right[x];
+		}
+		splay(x);
+		splay(y);
+		right[x] = y;
+		parent[y] = x;
+		update(x);
+		return x;
+	}
+
+	/**
+	 * Rotates the tour of a vertex's tree to start at that vertex.
+	 *
+	 * @return Root of the splay tree
+	 */
+	private int reroot(int x) {
+		splay(x);
+		int l = left[x];
+		if (l < 0) {
+			return x;
+		}
+		left[x] = -1;
+		parent[l] = -1;
+		update(x);
+		return join(x, l);
+	}
+
+	/**
+	 * Tells if two vertices are in the same tree.
+	 *
+	 * @param x First vertex
+	 * @param y Second vertex
+	 * @return True if x and y are connected
+	 */
+	public boolean connected(int x, int y) {
+		if (x == y) {
+			return true;
+		}
+		splay(x);
+		splay(y);
+		// splaying y moves x off the root only if they share a splay tree
+		return parent[x] >= 0;
+	}
+
+	/**
+	 * Returns the number of vertices in a node's tree.
+	 *
+	 * @param x Node
+	 * @return Number of vertices
+	 */
+	public int size(int x) {
+		splay(x);
+		return size[x];
+	}
+
+	/**
+	 * Links two vertices in different trees by a tree edge.
+	 *
+	 * @param x First vertex
+	 * @param y Second vertex
+	 * @param xy Unused edge node for crossing the edge from x to y
+	 * @param yx Unused edge node for crossing the edge from y to x
+	 */
+	public void link(int x, int y, int xy, int yx) {
+		int tx = reroot(x);
+		int ty = reroot(y);
+		join(join(join(tx, xy), ty), yx);
+	}
+
+	/**
+	 * Removes a tree edge, splitting its tree in two. The edge nodes are left
+	 * unused, unmarked and with no value.
+	 *
+	 * @param xy One edge node of the edge
+	 * @param yx The other edge node of the edge
+	 */
+	public void cut(int xy, int yx) {
+		splay(xy);
+		int l = left[xy], r = right[xy];
+		left[xy] = right[xy] = -1;
+		if (l >= 0) {
+			parent[l] = -1;
+		}
+		if (r >= 0) {
+			parent[r] = -1;
+		}
+		// the tour is l xy r; yx is on one side, and what lies between the two edge nodes is one tree
+		int root = yx;
+		while (parent[root] >= 0) {
+			root = parent[root];
+		}
+		splay(yx);
+		int outerLeft, outerRight;
+		if (root == l) {
+			outerLeft = left[yx];
+			outerRight = r;
+		} else {
+			outerLeft = l;
+			outerRight = right[yx];
+		}
+		if (left[yx] >= 0) {
+			parent[left[yx]] = -1;
+		}
+		if (right[yx] >= 0) {
+			parent[right[yx]] = -1;
+		}
+		left[yx] = right[yx] = -1;
+		mark[xy] = mark[yx] = false;
+		value[xy] = value[yx] = NONE;
+		update(xy);
+		update(yx);
+		join(outerLeft, outerRight);
+	}
+
+	/**
+	 * Marks or unmarks a node.
+	 *
+	 * @param x Node
+	 * @param m New mark
+	 */
+	public void setMark(int x, boolean m) {
+		splay(x);
+		mark[x] = m;
+		update(x);
+	}
+
+	/**
+	 * Finds a marked node in a node's tree.
+	 *
+	 * @param x Node
+	 * @return A marked node in the same tree, or -1 if there is none
+	 */
+	public int findMarked(int x) {
+		splay(x);
+		if (!marked[x]) {
+			return -1;
+		}
+		while (!mark[x]) {
+			x = left[x] >= 0 && marked[left[x]] ? left[x] : right[x];
+		}
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * Sets the value of a node.
+	 *
+	 * @param x Node
+	 * @param v Value, or {@link #NONE}
+	 */
+	public void setValue(int x, int v) {
+		splay(x);
+		value[x] = v;
+		update(x);
+	}
+
+	/**
+	 * Finds the node of smallest value in a node's tree.
+	 *
+	 * @param x Node
+	 * @return Node of smallest value in the same tree, or -1 if no node there has one
+	 */
+	public int findMin(int x) {
+		splay(x);
+		int v = min[x];
+		if (v == NONE) {
+			return -1;
+		}
+		while (value[x] != v) {
+			x = left[x] >= 0 && min[left[x]] == v ? left[x] : right[x];
+		}
+		splay(x);
+		return x;
+	}
+}
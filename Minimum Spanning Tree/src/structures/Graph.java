@@ -1,11 +1,12 @@
 package structures;
 
-import java.io.File;
 import java.io.IOException;
 import java.util.*;
 
 /**
- * A weighted, undirected graph, stored in adjacency linked lists format.
+ * A weighted, undirected graph. Adjacency is stored in compressed sparse row
+ * form; the adjacency linked list of Vertex.Neighbor objects of a vertex is
+ * only built when asked for, by {@link Vertex#getNeighbors()}.
  */
 public class Graph {
       
@@ -20,40 +21,89 @@ public class Graph {
     HashMap<String,Integer> vertmap;
 
     /**
-     * Constructs a graph out of a plain text description in an input file.
+     * Adjacency of the graph, with vertices identified by their numbers.
+     */
+    CsrGraph adjacency;
+
+    /**
+     * Constructs a graph out of a graph file, in either the plain text format or
+     * the binary format described in {@link GraphIO}.
      * 
      * @param file Name of the file that has the input graph description.
-     * @throws IOException If the input file is not found.
+     * @throws IOException If the input file is not found, or is malformed.
      */
     public Graph(String file) 
     throws IOException {
-    	Scanner sc = new Scanner(new File(file));
-    	// first line is number of vertices
-    	vertices = new Vertex[sc.nextInt()];
+    	GraphIO.Parsed parsed = GraphIO.read(file);
+    	init(parsed.names, parsed.adjacency);
+    }
+
+    /**
+     * Constructs a graph out of a graph file, parsing a text file on a fork-join
+     * pool. The graph is the same as {@link #Graph(String)} builds.
+     * 
+     * @param file Name of the file that has the input graph description.
+     * @param pool Pool on which the file is parsed.
+     * @throws IOException If the input file is not found, or is malformed.
+     */
+    public Graph(String file, java.util.concurrent.ForkJoinPool pool) 
+    throws IOException {
+    	GraphIO.Parsed parsed = GraphIO.read(file, pool);
+    	init(parsed.names, parsed.adjacency);
+    }
+
+    /**
+     * Constructs a graph with the given vertex names and edges.
+     * 
+     * @param names Names of the vertices, in vertex number order.
+     * @param edges Edges of the graph, with endpoints given as vertex numbers.
+     */
+    public Graph(String[] names, EdgeList edges) {
+    	this(names, CsrGraph.build(names.length, edges));
+    }
+
+    /**
+     * Constructs a graph with the given vertex names and adjacency.
+     * 
+     * @param names Names of the vertices, in vertex number order.
+     * @param adjacency Adjacency of the graph, with vertices given as vertex numbers.
+     */
+    public Graph(String[] names, CsrGraph adjacency) {
+    	init(names, adjacency);
+    }
+
+    private void init(String[] names, CsrGraph adjacency) {
+    	this.adjacency = adjacency;
+    	vertices = new Vertex[names.length];
     	vertmap = new HashMap<String,Integer>(vertices.length,2f);
-    	// add all vertices
     	for (int v=0; v < vertices.length; v++) {
-    		vertices[v] = new Vertex(sc.next());
-    		vertmap.put(vertices[v].name, v);
-    	}
-    	
-    	// add edges
-    	while (sc.hasNext()) {
-    		Vertex vx1 = vertices[vertmap.get(sc.next())];
-    		Vertex vx2 = vertices[vertmap.get(sc.next())];
-    		int wt = sc.nextInt();
-    		
-    		// add vx2 to vx1's list
-    		Vertex.Neighbor nbr = new Vertex.Neighbor(vx2,wt);
-    		nbr.next = vx1.neighbors;
-    		vx1.neighbors = nbr;
-    		// add vx1 to vx2's list
-    		nbr = new Vertex.Neighbor(vx1,wt);
-    		nbr.next = vx2.neighbors;
-    		vx2.neighbors = nbr;
+    		vertices[v] = new Vertex(names[v]);
+    		vertices[v].id = v;
+    		vertices[v].graph = this;
+    		vertmap.put(names[v], v);
     	}
     }
-    
+
+    /**
+     * Returns the number of the vertex with the given name.
+     * 
+     * @param name Vertex name
+     * @return Vertex number, or -1 if there is no such vertex
+     */
+    public int indexOf(String name) {
+    	Integer v = vertmap.get(name);
+    	return v == null ? -1 : v;
+    }
+
+    /**
+     * Returns the adjacency of this graph in compressed sparse row form.
+     * 
+     * @return CSR adjacency
+     */
+    public CsrGraph getAdjacency() {
+    	return adjacency;
+    }
+
     /**
      * Prints this graph
      */
@@ -63,10 +113,10 @@ public class Graph {
 		for (int i=0; i < vertices.length; i++) {
 			System.out.println(vertices[i].name);
 		}
-		// list all edges
+		// list all edges, most recently read first, as in the adjacency lists
 		for (int i=0; i < vertices.length; i++) {
-			for (Vertex.Neighbor nbr=vertices[i].neighbors; nbr != null; nbr=nbr.next) {
-				System.out.println(vertices[i].name + " " + nbr.vertex.name + " " + nbr.weight);
+			for (int j=adjacency.end(i)-1; j >= adjacency.start(i); j--) {
+				System.out.println(vertices[i].name + " " + vertices[adjacency.target(j)].name + " " + adjacency.weight(j));
 			}
 		}
 	}
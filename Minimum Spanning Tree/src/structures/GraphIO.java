@@ -0,0 +1,758 @@
+package structures;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Reads and writes graph files. Two formats are understood:
+ * 
+ * The text format: the number of vertices, then the name of every vertex,
+ * then one (name, name, weight) triple per edge, all separated by white space.
+ * 
+ * The binary format, with all numbers big-endian:
+ * <pre>
+ *   int    MAGIC
+ *   int    VERSION
+ *   int    number of vertices, n
+ *   long   number of edges, m
+ *   n x    (int length, UTF-8 bytes) vertex names
+ *   m x    (int v1, int v2, int weight) edges, by vertex number
+ * </pre>
+ * Binary edges are read through memory-mapped windows of the file. Large text
+ * files can be parsed in parallel, by {@link #read(String, ForkJoinPool)}.
+ */
+public class GraphIO {
+
+	/**
+	 * First four bytes of a binary graph file: "MSTG"
+	 */
+	public static final int MAGIC = 0x4D535447;
+
+	/**
+	 * Binary format version
+	 */
+	public static final int VERSION = 1;
+
+	/**
+	 * Bytes in one binary edge record
+	 */
+	static final int EDGE_BYTES = 12;
+
+	/**
+	 * Size of the header ahead of the name table
+	 */
+	static final int HEADER_BYTES = 20;
+
+	/**
+	 * Largest mapped window: the biggest whole number of edge records that fits in an int
+	 */
+	static final int WINDOW = Integer.MAX_VALUE / EDGE_BYTES * EDGE_BYTES;
+
+	/**
+	 * Smallest byte range of a text file's edge section parsed by one task
+	 */
+	static final int MIN_CHUNK = 1 << 20;
+
+	/**
+	 * Vertex names and adjacency read from a file
+	 */
+	static class Parsed {
+		String[] names;
+		CsrGraph adjacency;
+
+		Parsed(String[] names, CsrGraph adjacency) {
+			this.names = names;
+			this.adjacency = adjacency;
+		}
+	}
+
+	/**
+	 * Reads a graph file in either format, telling them apart by the magic number.
+	 * 
+	 * @param file Name of graph file
+	 * @return Vertex names and adjacency
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	static Parsed read(String file)
+	throws IOException {
+		if (isBinary(file)) {
+			return readBinary(file);
+		}
+		return readText(file);
+	}
+
+	/**
+	 * Reads a graph file in either format, parsing a text file on a fork-join pool.
+	 * 
+	 * @param file Name of graph file
+	 * @param pool Pool on which text is parsed
+	 * @return Vertex names and adjacency, the same as {@link #read(String)} gives
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	static Parsed read(String file, ForkJoinPool pool)
+	throws IOException {
+		if (isBinary(file)) {
+			return readBinary(file);
+		}
+		return readTextParallel(file, pool);
+	}
+
+	/**
+	 * Tells if a file starts with the binary format magic number.
+	 * 
+	 * @param file Name of graph file
+	 * @return True if the file is in binary format
+	 * @throws IOException If the file cannot be read
+	 */
+	public static boolean isBinary(String file)
+	throws IOException {
+		DataInputStream in = new DataInputStream(new FileInputStream(file));
+		try {
+			return in.readInt() == MAGIC;
+		} catch (java.io.EOFException e) {
+			return false;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Reads a graph in text format with a byte-level tokenizer. Vertex names are
+	 * looked up straight from the input bytes, without making a String per token.
+	 * 
+	 * @param file Name of graph file
+	 * @return Vertex names and adjacency
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	static Parsed readText(String file)
+	throws IOException {
+		Tokenizer tok = new Tokenizer(new FileInputStream(file));
+		try {
+			String[] names = readNames(tok);
+			NameTable table = new NameTable(names);
+			EdgeList edges = new EdgeList(names.length);
+			while (tok.next()) {
+				int v1 = tok.vertex(table);
+				tok.expect();
+				int v2 = tok.vertex(table);
+				tok.expect();
+				edges.add(v1, v2, tok.intValue());
+			}
+			return new Parsed(names, CsrGraph.build(names.length, edges));
+		} finally {
+			tok.close();
+		}
+	}
+
+	/**
+	 * Reads a graph in text format on a fork-join pool. The vertex names are read
+	 * sequentially; the edge section is then cut into byte ranges that start just
+	 * after a newline, and each range is parsed by its own task into its own edge
+	 * list, looking names up in one shared name table. The lists are assembled
+	 * into CSR form in file order, so the result is exactly that of
+	 * {@link #readText(String)}.
+	 * 
+	 * A range can only be parsed on its own if it starts at a triple, so every
+	 * task checks that each line of its range holds whole triples: then every
+	 * line, and so every range after the first, starts at a triple. If any edge
+	 * triple is broken across lines, or the file is malformed, the file is read
+	 * again sequentially.
+	 * 
+	 * @param file Name of graph file
+	 * @param pool Pool on which the edge ranges are parsed
+	 * @return Vertex names and adjacency
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	static Parsed readTextParallel(String file, ForkJoinPool pool)
+	throws IOException {
+		String[] names;
+		long edgeStart;
+		Tokenizer tok = new Tokenizer(new FileInputStream(file));
+		try {
+			names = readNames(tok);
+			edgeStart = tok.offset();
+		} finally {
+			tok.close();
+		}
+
+		RandomAccessFile raf = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = raf.getChannel();
+			long length = channel.size();
+			int chunks = (int)Math.min(4L * pool.getParallelism(), (length - edgeStart) / MIN_CHUNK);
+			if (chunks < 2) {
+				return readText(file);
+			}
+			long[] bounds = new long[chunks+1];
+			bounds[0] = edgeStart;
+			bounds[chunks] = length;
+			for (int c=1; c < chunks; c++) {
+				long cut = edgeStart + (length - edgeStart) * c / chunks;
+				bounds[c] = Math.max(bounds[c-1], lineStart(channel, cut));
+			}
+
+			NameTable table = new NameTable(names);
+			ParseTask root = new ParseTask(channel, table, bounds, new EdgeList[chunks], 0, chunks);
+			pool.invoke(root);
+			if (root.failed) {
+				return readText(file);
+			}
+			return new Parsed(names, CsrGraph.build(names.length, root.parts));
+		} finally {
+			raf.close();
+		}
+	}
+
+	/**
+	 * Returns the offset just after the first newline at or after a position, or
+	 * the end of the file if there is none.
+	 */
+	private static long lineStart(FileChannel channel, long pos)
+	throws IOException {
+		ByteBuffer buf = ByteBuffer.allocate(4096);
+		while (true) {
+			buf.clear();
+			int r = channel.read(buf, pos);
+			if (r <= 0) {
+				return channel.size();
+			}
+			for (int i=0; i < r; i++) {
+				if (buf.get(i) == '\n') {
+					return pos + i + 1;
+				}
+			}
+			pos += r;
+		}
+	}
+
+	/**
+	 * Parses the edge triples in a run of byte ranges of a text file, one list
+	 * per range.
+	 */
+	private static class ParseTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private FileChannel channel;
+		private NameTable table;
+		private long[] bounds;
+		EdgeList[] parts;
+		private int from, to;
+		/**
+		 * Set if any range did not parse as whole triples of known vertices, one
+		 * line or more per triple
+		 */
+		boolean failed;
+
+		ParseTask(FileChannel channel, NameTable table, long[] bounds, EdgeList[] parts, int from, int to) {
+			this.channel = channel;
+			this.table = table;
+			this.bounds = bounds;
+			this.parts = parts;
+			this.from = from;
+			this.to = to;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				ParseTask left = new ParseTask(channel, table, bounds, parts, from, mid);
+				ParseTask right = new ParseTask(channel, table, bounds, parts, mid, to);
+				invokeAll(left, right);
+				failed = left.failed || right.failed;
+				return;
+			}
+			long start = bounds[from], end = bounds[from+1];
+			// a rough guess of 16 bytes per edge line
+			EdgeList edges = new EdgeList((int)Math.min((end - start) / 16, Integer.MAX_VALUE - 8));
+			Tokenizer tok = new Tokenizer(new RangeInputStream(channel, start, end));
+			try {
+				while (tok.next()) {
+					int v1 = tok.vertex(table);
+					tok.expect();
+					boolean broken = tok.newline;
+					int v2 = tok.vertex(table);
+					tok.expect();
+					if (broken || tok.newline) {
+						// the range may not start at a triple
+						failed = true;
+						return;
+					}
+					edges.add(v1, v2, tok.intValue());
+				}
+				parts[from] = edges;
+			} catch (IOException e) {
+				failed = true;
+			}
+		}
+	}
+
+	/**
+	 * Stream over a byte range of a file channel, using positional reads so
+	 * that several streams can share the channel.
+	 */
+	private static class RangeInputStream extends InputStream {
+		private FileChannel channel;
+		private long pos, end;
+
+		RangeInputStream(FileChannel channel, long start, long end) {
+			this.channel = channel;
+			this.pos = start;
+			this.end = end;
+		}
+
+		public int read()
+		throws IOException {
+			byte[] b = new byte[1];
+			return read(b, 0, 1) <= 0 ? -1 : b[0] & 0xFF;
+		}
+
+		public int read(byte[] b, int off, int len)
+		throws IOException {
+			if (pos >= end) {
+				return -1;
+			}
+			int r = channel.read(ByteBuffer.wrap(b, off, (int)Math.min(len, end - pos)), pos);
+			if (r > 0) {
+				pos += r;
+			}
+			return r;
+		}
+	}
+
+	/**
+	 * Reads the vertex count and names at the start of a text graph file.
+	 */
+	static String[] readNames(Tokenizer tok)
+	throws IOException {
+		tok.expect();
+		String[] names = new String[tok.intValue()];
+		for (int v=0; v < names.length; v++) {
+			tok.expect();
+			names[v] = tok.string();
+		}
+		return names;
+	}
+
+	/**
+	 * Reads a graph in binary format. Degrees are counted in one pass over the
+	 * mapped edge records, and the CSR rows are filled in a second pass, so no
+	 * intermediate edge list is built.
+	 * 
+	 * @param file Name of graph file
+	 * @return Vertex names and adjacency
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	static Parsed readBinary(String file)
+	throws IOException {
+		BinaryGraphFile in = new BinaryGraphFile(file);
+		try {
+			String[] names = in.names;
+			long m = in.edgeCount;
+			if (2*m > Integer.MAX_VALUE) {
+				throw new IOException(file + ": " + m + " edges is too many for an in-memory graph");
+			}
+
+			int n = names.length;
+			int[] offsets = new int[n+1];
+			int[] chunk = new int[3*4096];
+			for (long done=0; done < m; ) {
+				IntBuffer ib = in.mapEdges(done);
+				while (ib.hasRemaining()) {
+					int len = Math.min(chunk.length, ib.remaining());
+					ib.get(chunk, 0, len);
+					for (int i=0; i < len; i+=3) {
+						in.checkVertex(chunk[i]);
+						in.checkVertex(chunk[i+1]);
+						offsets[chunk[i]+1]++;
+						offsets[chunk[i+1]+1]++;
+					}
+					done += len / 3;
+				}
+			}
+			for (int v=0; v < n; v++) {
+				offsets[v+1] += offsets[v];
+			}
+			int[] next = Arrays.copyOf(offsets, n);
+			int[] targets = new int[offsets[n]];
+			int[] weights = new int[offsets[n]];
+			for (long done=0; done < m; ) {
+				IntBuffer ib = in.mapEdges(done);
+				while (ib.hasRemaining()) {
+					int len = Math.min(chunk.length, ib.remaining());
+					ib.get(chunk, 0, len);
+					for (int i=0; i < len; i+=3) {
+						int u = chunk[i], v = chunk[i+1], w = chunk[i+2];
+						targets[next[u]] = v;
+						weights[next[u]++] = w;
+						targets[next[v]] = u;
+						weights[next[v]++] = w;
+					}
+					done += len / 3;
+				}
+			}
+			return new Parsed(names, new CsrGraph(offsets, targets, weights));
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Writes a graph in binary format.
+	 * 
+	 * @param graph Graph to write
+	 * @param file Name of output file
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writeBinary(Graph graph, String file)
+	throws IOException {
+		CsrGraph adj = graph.adjacency;
+		DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(graph.vertices.length);
+			out.writeLong(adj.entryCount() / 2);
+			for (Vertex v : graph.vertices) {
+				byte[] bytes = v.name.getBytes(StandardCharsets.UTF_8);
+				out.writeInt(bytes.length);
+				out.write(bytes);
+			}
+			for (int v=0; v < adj.vertexCount(); v++) {
+				// a self loop has two entries in its own row; write it once
+				boolean skipLoop = false;
+				for (int i=adj.offsets[v]; i < adj.offsets[v+1]; i++) {
+					int t = adj.targets[i];
+					if (t < v || (t == v && (skipLoop = !skipLoop))) {
+						continue;
+					}
+					out.writeInt(v);
+					out.writeInt(t);
+					out.writeInt(adj.weights[i]);
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Writes a graph in text format.
+	 * 
+	 * @param graph Graph to write
+	 * @param file Name of output file
+	 * @throws IOException If the file cannot be written
+	 */
+	public static void writeText(Graph graph, String file)
+	throws IOException {
+		CsrGraph adj = graph.adjacency;
+		java.io.BufferedWriter out = new java.io.BufferedWriter(new java.io.FileWriter(file), 1 << 16);
+		try {
+			out.write(Integer.toString(graph.vertices.length));
+			out.newLine();
+			for (Vertex v : graph.vertices) {
+				out.write(v.name);
+				out.newLine();
+			}
+			for (int v=0; v < adj.vertexCount(); v++) {
+				boolean skipLoop = false;
+				for (int i=adj.offsets[v]; i < adj.offsets[v+1]; i++) {
+					int t = adj.targets[i];
+					if (t < v || (t == v && (skipLoop = !skipLoop))) {
+						continue;
+					}
+					out.write(graph.vertices[v].name);
+					out.write(' ');
+					out.write(graph.vertices[t].name);
+					out.write(' ');
+					out.write(Integer.toString(adj.weights[i]));
+					out.newLine();
+				}
+			}
+		} finally {
+			out.close();
+		}
+	}
+
+	/**
+	 * Converts a text graph file to binary format, streaming the edges through
+	 * without building the graph in memory.
+	 * 
+	 * @param textFile Name of input file, in text format
+	 * @param binaryFile Name of output file
+	 * @return Number of edges written
+	 * @throws IOException If a file cannot be read or written, or the input is malformed
+	 */
+	public static long convert(String textFile, String binaryFile)
+	throws IOException {
+		Tokenizer tok = new Tokenizer(new FileInputStream(textFile));
+		long m = 0;
+		try {
+			String[] names = readNames(tok);
+			NameTable table = new NameTable(names);
+			DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(binaryFile), 1 << 16));
+			try {
+				out.writeInt(MAGIC);
+				out.writeInt(VERSION);
+				out.writeInt(names.length);
+				out.writeLong(0); // patched below, once the edges are counted
+				for (String name : names) {
+					byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+					out.writeInt(bytes.length);
+					out.write(bytes);
+				}
+				while (tok.next()) {
+					out.writeInt(tok.vertex(table));
+					tok.expect();
+					out.writeInt(tok.vertex(table));
+					tok.expect();
+					out.writeInt(tok.intValue());
+					m++;
+				}
+			} finally {
+				out.close();
+			}
+		} finally {
+			tok.close();
+		}
+		RandomAccessFile raf = new RandomAccessFile(binaryFile, "rw");
+		try {
+			raf.seek(HEADER_BYTES - 8);
+			raf.writeLong(m);
+		} finally {
+			raf.close();
+		}
+		return m;
+	}
+
+	/**
+	 * Splits an input stream into white space separated tokens, working directly
+	 * on a byte buffer. A token is always contiguous in the buffer.
+	 */
+	static class Tokenizer {
+		private InputStream in;
+		byte[] buf;
+		int pos, limit;
+		/**
+		 * Offset in the input of buf[0]
+		 */
+		long base;
+		/**
+		 * Bounds of the current token in buf
+		 */
+		int start, end;
+		/**
+		 * Set if a newline was skipped on the way to the current token
+		 */
+		boolean newline;
+
+		Tokenizer(InputStream in) {
+			this(in, new byte[1 << 16], 0, 0);
+		}
+
+		Tokenizer(InputStream in, byte[] buf, int pos, int limit) {
+			this.in = in;
+			this.buf = buf;
+			this.pos = pos;
+			this.limit = limit;
+		}
+
+		/**
+		 * Advances to the next token.
+		 * 
+		 * @return False if there are no more tokens
+		 */
+		boolean next()
+		throws IOException {
+			newline = false;
+			while (true) {
+				// bytes are signed, so masked: UTF-8 bytes of 0x80 and up are part of a name
+				while (pos < limit && (buf[pos] & 0xff) <= ' ') {
+					newline |= buf[pos] == '\n';
+					pos++;
+				}
+				if (pos < limit) {
+					break;
+				}
+				if (!fill(0)) {
+					return false;
+				}
+			}
+			start = pos;
+			while (true) {
+				while (pos < limit && (buf[pos] & 0xff) > ' ') {
+					pos++;
+				}
+				if (pos < limit || !fill(pos - start)) {
+					break;
+				}
+			}
+			end = pos;
+			return true;
+		}
+
+		/**
+		 * Advances to the next token, which must exist.
+		 */
+		void expect()
+		throws IOException {
+			if (!next()) {
+				throw new IOException("unexpected end of graph file");
+			}
+		}
+
+		/**
+		 * Refills the buffer, keeping the last keep bytes (a partly read token) at its front.
+		 * 
+		 * @return False at end of input
+		 */
+		private boolean fill(int keep)
+		throws IOException {
+			if (in == null) {
+				return false;
+			}
+			if (keep == buf.length) {
+				buf = Arrays.copyOf(buf, buf.length * 2);
+			} else {
+				System.arraycopy(buf, limit - keep, buf, 0, keep);
+			}
+			base += limit - keep;
+			pos = keep;
+			start = 0;
+			limit = keep;
+			int r = in.read(buf, limit, buf.length - limit);
+			if (r <= 0) {
+				return false;
+			}
+			limit += r;
+			return true;
+		}
+
+		/**
+		 * Returns the offset in the input just past the current token.
+		 */
+		long offset() {
+			return base + pos;
+		}
+
+		/**
+		 * Parses the current token as an int, as Scanner.nextInt does for plain
+		 * decimal digits.
+		 * 
+		 * @throws IOException If the token is not a number, or does not fit in an int
+		 */
+		int intValue()
+		throws IOException {
+			int i = start;
+			long value = 0;
+			boolean neg = buf[i] == '-';
+			if (neg || buf[i] == '+') {
+				i++;
+			}
+			if (i == end) {
+				throw new IOException("bad number: " + string());
+			}
+			long max = neg ? -(long)Integer.MIN_VALUE : Integer.MAX_VALUE;
+			for (; i < end; i++) {
+				int d = (buf[i] & 0xff) - '0';
+				if (d < 0 || d > 9) {
+					throw new IOException("bad number: " + string());
+				}
+				value = value*10 + d;
+				if (value > max) {
+					throw new IOException("number out of range: " + string());
+				}
+			}
+			return (int)(neg ? -value : value);
+		}
+
+		String string() {
+			return new String(buf, start, end - start, StandardCharsets.UTF_8);
+		}
+
+		int vertex(NameTable table)
+		throws IOException {
+			int v = table.find(buf, start, end);
+			if (v < 0) {
+				throw new IOException("unknown vertex: " + string());
+			}
+			return v;
+		}
+
+		void close()
+		throws IOException {
+			if (in != null) {
+				in.close();
+			}
+		}
+	}
+
+	/**
+	 * Open-addressing hash table from vertex name bytes to vertex number. Lookups
+	 * only read the table, so one table can be shared by several threads.
+	 */
+	static class NameTable {
+		private byte[][] names;
+		/**
+		 * Vertex number + 1 in each slot, 0 for an empty slot
+		 */
+		private int[] slots;
+		private int mask;
+
+		NameTable(String[] names) {
+			int cap = Integer.highestOneBit(Math.max(names.length, 1) * 2) * 2;
+			this.names = new byte[names.length][];
+			slots = new int[cap];
+			mask = cap - 1;
+			for (int v=0; v < names.length; v++) {
+				byte[] b = names[v].getBytes(StandardCharsets.UTF_8);
+				this.names[v] = b;
+				int s = hash(b, 0, b.length) & mask;
+				while (slots[s] != 0 && !Arrays.equals(this.names[slots[s]-1], b)) {
+					s = (s + 1) & mask;
+				}
+				// a repeated name maps to its last occurrence
+				slots[s] = v + 1;
+			}
+		}
+
+		int find(byte[] buf, int start, int end) {
+			int s = hash(buf, start, end) & mask;
+			for (int id; (id = slots[s]) != 0; s = (s + 1) & mask) {
+				byte[] b = names[id-1];
+				if (b.length == end - start && matches(b, buf, start)) {
+					return id - 1;
+				}
+			}
+			return -1;
+		}
+
+		private static boolean matches(byte[] b, byte[] buf, int start) {
+			for (int i=0; i < b.length; i++) {
+				if (b[i] != buf[start+i]) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private static int hash(byte[] buf, int start, int end) {
+			int h = 0x811C9DC5;
+			for (int i=start; i < end; i++) {
+				h = (h ^ buf[i]) * 0x01000193;
+			}
+			return h ^ (h >>> 16);
+		}
+	}
+}
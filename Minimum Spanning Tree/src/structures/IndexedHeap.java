@@ -0,0 +1,187 @@
+package structures;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A d-ary MIN-heap of the integers 0..n-1 (vertex numbers), each with a long
+ * key. The slot of every item in the heap is tracked, so the key of an item
+ * already in the heap can be lowered in place with {@link #decreaseKey(int, long)}.
+ */
+public class IndexedHeap {
+
+	/**
+	 * Number of children per node
+	 */
+	private int d;
+
+	/**
+	 * Heap-ordered items, in slots 0 to size-1
+	 */
+	private int[] heap;
+
+	/**
+	 * Slot of each item in heap, or -1 if the item is not in the heap
+	 */
+	private int[] pos;
+
+	/**
+	 * Key of each item
+	 */
+	private long[] key;
+
+	/**
+	 * Number of items in the heap
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new, empty heap for the items 0..n-1.
+	 *
+	 * @param n Number of possible items
+	 * @param d Number of children per node, at least 2
+	 */
+	public IndexedHeap(int n, int d) {
+		if (d < 2) {
+			throw new IllegalArgumentException("heap arity must be at least 2");
+		}
+		this.d = d;
+		heap = new int[n];
+		pos = new int[n];
+		key = new long[n];
+		java.util.Arrays.fill(pos, -1);
+		size = 0;
+	}
+
+	private void siftUp(int k) {
+		int item = heap[k];
+		long kk = key[item];
+		while (k > 0) {
+			int p = (k-1) / d;
+			if (key[heap[p]] <= kk) {
+				break;
+			}
+			heap[k] = heap[p];
+			pos[heap[k]] = k;
+			k = p;
+		}
+		heap[k] = item;
+		pos[item] = k;
+	}
+
+	private void siftDown(int k) {
+		int item = heap[k];
+		long kk = key[item];
+		while (true) {
+			int c = d*k + 1;
+			if (c >= size) {
+				break;
+			}
+			int end = Math.min(c + d, size);
+			int min = c;
+			for (int i=c+1; i < end; i++) {
+				if (key[heap[i]] < key[heap[min]]) {
+					min = i;
+				}
+			}
+			if (key[heap[min]] >= kk) {
+				break;
+			}
+			heap[k] = heap[min];
+			pos[heap[k]] = k;
+			k = min;
+		}
+		heap[k] = item;
+		pos[item] = k;
+	}
+
+	/**
+	 * Inserts an item into the heap.
+	 *
+	 * @param item Item, not already in the heap
+	 * @param k Key of item
+	 * @throws IllegalArgumentException If the item is already in the heap
+	 */
+	public void insert(int item, long k) {
+		if (pos[item] >= 0) {
+			throw new IllegalArgumentException("item " + item + " is already in the heap");
+		}
+		key[item] = k;
+		heap[size] = item;
+		siftUp(size++);
+	}
+
+	/**
+	 * Lowers the key of an item in the heap. Does nothing if the new key is not lower.
+	 *
+	 * @param item Item in the heap
+	 * @param k New key of item
+	 * @throws NoSuchElementException If the item is not in the heap
+	 */
+	public void decreaseKey(int item, long k) {
+		if (pos[item] < 0) {
+			throw new NoSuchElementException("item " + item + " is not in the heap");
+		}
+		if (k < key[item]) {
+			key[item] = k;
+			siftUp(pos[item]);
+		}
+	}
+
+	/**
+	 * Removes and returns the item with the min key.
+	 *
+	 * @return Item at top of heap.
+	 * @throws NoSuchElementException If the heap is empty.
+	 */
+	public int deleteMin()
+	throws NoSuchElementException {
+		if (size == 0) {
+			throw new NoSuchElementException();
+		}
+		int min = heap[0];
+		pos[min] = -1;
+		if (--size > 0) {
+			heap[0] = heap[size];
+			siftDown(0);
+		}
+		return min;
+	}
+
+	/**
+	 * Tells if an item is in the heap.
+	 *
+	 * @param item Item
+	 * @return True if item is in the heap
+	 */
+	public boolean contains(int item) {
+		return pos[item] >= 0;
+	}
+
+	/**
+	 * Returns the key of an item, which is its last key if it has left the heap.
+	 *
+	 * @param item Item
+	 * @return Key of item
+	 */
+	public long keyOf(int item) {
+		return key[item];
+	}
+
+	/**
+	 * Returns the number of items currently stored in the heap.
+	 *
+	 * @return Size of heap.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Tells if the heap is empty.
+	 *
+	 * @return <tt>true</tt> if no items are in heap, <tt>false</tt> otherwise.
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+}
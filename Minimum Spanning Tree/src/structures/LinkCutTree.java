@@ -0,0 +1,415 @@
+package structures;
+
+import java.util.Arrays;
+
+/**
+ * A forest of link-cut trees over the nodes 0..n-1, each node holding a long
+ * value. Every operation takes O(log n) amortized time. Trees are kept as
+ * preferred paths, each path stored in a splay tree ordered by depth, with
+ * lazy reversal so that any node can be made the root of its tree.
+ * 
+ * An edge of a weighted graph is represented by a node of its own, holding the
+ * weight and linked between the nodes of its two ends, so that
+ * {@link #pathMax(int, int)} finds the heaviest edge on a tree path.
+ *
+ * Nodes can also be given long labels in any number of layers, a whole tree
+ * path at a time, with the labelling pushed down the splay trees lazily. A
+ * label of 0 means none, and the last label a node got in any layer is its
+ * mark, so that {@link #lastLabeled(int, int, long)} can find where a path
+ * leaves the nodes labelled since some point.
+ */
+public class LinkCutTree {
+
+	/**
+	 * Left and right splay children, and splay parent or path-parent; -1 for none
+	 */
+	private int[] left, right, parent;
+
+	/**
+	 * Pending reversal of the splay subtree under each node
+	 */
+	private boolean[] flip;
+
+	/**
+	 * Value of each node
+	 */
+	private long[] value;
+
+	/**
+	 * Node with the largest value in each splay subtree
+	 */
+	private int[] max;
+
+	/**
+	 * Label of each node in each layer
+	 */
+	private long[][] label;
+
+	/**
+	 * Last label each node got in any layer, and largest mark in each splay subtree
+	 */
+	private long[] mark, maxMark;
+
+	/**
+	 * Layers, and the mark ({@link #MARK}), in which each node's label is still
+	 * to be pushed down to its splay subtree
+	 */
+	private long[] pending;
+
+	private static final long MARK = 1L << 63;
+
+	/**
+	 * Scratch stack for pushing reversals and labels down before a splay
+	 */
+	private int[] stack;
+
+	/**
+	 * Initializes n single-node trees, all with value Long.MIN_VALUE.
+	 *
+	 * @param n Number of nodes
+	 */
+	public LinkCutTree(int n) {
+		left = new int[n];
+		right = new int[n];
+		parent = new int[n];
+		flip = new boolean[n];
+		value = new long[n];
+		max = new int[n];
+		label = new long[0][];
+		mark = new long[n];
+		maxMark = new long[n];
+		pending = new long[n];
+		stack = new int[n];
+		for (int x=0; x < n; x++) {
+			left[x] = right[x] = parent[x] = -1;
+			value[x] = Long.MIN_VALUE;
+			max[x] = x;
+		}
+	}
+
+	/**
+	 * Sets the value of a node.
+	 *
+	 * @param x Node
+	 * @param v Value
+	 */
+	public void setValue(int x, long v) {
+		access(x);
+		value[x] = v;
+		update(x);
+	}
+
+	/**
+	 * Returns the value of a node.
+	 *
+	 * @param x Node
+	 * @return Value
+	 */
+	public long getValue(int x) {
+		return value[x];
+	}
+
+	private boolean isSplayRoot(int x) {
+		int p = parent[x];
+		return p < 0 || (left[p] != x && right[p] != x);
+	}
+
+	private void update(int x) {
+		int m = x;
+		if (left[x] >= 0 && value[max[left[x]]] > value[m]) {
+			m = max[left[x]];
+		}
+		if (right[x] >= 0 && value[max[right[x]]] > value[m]) {
+			m = max[right[x]];
+		}
+		max[x] = m;
+		long k = mark[x];
+		if (left[x] >= 0 && maxMark[left[x]] > k) {
+			k = maxMark[left[x]];
+		}
+		if (right[x] >= 0 && maxMark[right[x]] > k) {
+			k = maxMark[right[x]];
+		}
+		maxMark[x] = k;
+	}
+
+	private void push(int x) {
+		if (flip[x]) {
+			int t = left[x]; left[x] = right[x]; right[x] = t;
+			if (left[x] >= 0) {
+				flip[left[x]] ^= true;
+			}
+			if (right[x] >= 0) {
+				flip[right[x]] ^= true;
+			}
+			flip[x] = false;
+		}
+		if (pending[x] != 0) {
+			if (left[x] >= 0) {
+				copyLabels(x, left[x]);
+			}
+			if (right[x] >= 0) {
+				copyLabels(x, right[x]);
+			}
+			pending[x] = 0;
+		}
+	}
+
+	/**
+	 * Gives a splay child the labels its parent is still to push down.
+	 */
+	private void copyLabels(int x, int c) {
+		long p = pending[x];
+		if ((p & MARK) != 0) {
+			mark[c] = maxMark[c] = mark[x];
+		}
+		for (long layers=p & ~MARK; layers != 0; layers &= layers - 1) {
+			int j = Long.numberOfTrailingZeros(layers);
+			label[j][c] = label[j][x];
+		}
+		pending[c] |= p;
+	}
+
+	private void rotate(int x) {
+		int p = parent[x], g = parent[p];
+		if (!isSplayRoot(p)) {
+			if (left[g] == p) {
+				left[g] = x;
+			} else {
+				right[g] = x;
+			}
+		}
+		parent[x] = g;
+		if (left[p] == x) {
+			left[p] = right[x];
+			if (right[x] >= 0) {
+				parent[right[x]] = p;
+			}
+			right[x] = p;
+		} else {
+			right[p] = left[x];
+			if (left[x] >= 0) {
+				parent[left[x]] = p;
+			}
+			left[x] = p;
+		}
+		parent[p] = x;
+		update(p);
+		update(x);
+	}
+
+	private void splay(int x) {
+		int top = 0;
+		stack[top++] = x;
+		for (int y=x; !isSplayRoot(y); y=parent[y]) {
+			stack[top++] = parent[y];
+		}
+		while (top > 0) {
+			push(stack[--top]);
+		}
+		while (!isSplayRoot(x)) {
+			int p = parent[x];
+			if (!isSplayRoot(p)) {
+				int g = parent[p];
+				rotate((left[g] == p) == (left[p] == x) ? p : x);
+			}
+			rotate(x);
+		}
+	}
+
+	/**
+	 * Makes the path from the root of x's tree down to x preferred, and splays x
+	 * to the root of that path's splay tree.
+	 */
+	private void access(int x) {
+		for (int y=x, last=-1; y >= 0; last=y, y=parent[y]) {
+			splay(y);
+			right[y] = last;
+			update(y);
+		}
+		splay(x);
+	}
+
+	/**
+	 * Makes a node the root of its tree.
+	 *
+	 * @param x Node
+	 */
+	public void makeRoot(int x) {
+		access(x);
+		flip[x] ^= true;
+	}
+
+	/**
+	 * Finds the root of the tree containing a node.
+	 *
+	 * @param x Node
+	 * @return Root node
+	 */
+	public int findRoot(int x) {
+		access(x);
+		push(x);
+		while (left[x] >= 0) {
+			x = left[x];
+			push(x);
+		}
+		splay(x);
+		return x;
+	}
+
+	/**
+	 * Tells if two nodes are in the same tree.
+	 *
+	 * @param x First node
+	 * @param y Second node
+	 * @return True if x and y are connected
+	 */
+	public boolean connected(int x, int y) {
+		return x == y || findRoot(x) == findRoot(y);
+	}
+
+	/**
+	 * Links two nodes in different trees.
+	 *
+	 * @param x First node
+	 * @param y Second node
+	 * @throws IllegalArgumentException If x and y are already connected
+	 */
+	public void link(int x, int y) {
+		makeRoot(x);
+		if (findRoot(y) == x) {
+			throw new IllegalArgumentException("nodes " + x + " and " + y + " are already connected");
+		}
+		parent[x] = y;
+	}
+
+	/**
+	 * Removes the tree edge between two adjacent nodes.
+	 *
+	 * @param x First node
+	 * @param y Second node
+	 * @throws IllegalArgumentException If x and y are not adjacent
+	 */
+	public void cut(int x, int y) {
+		makeRoot(x);
+		access(y);
+		// with x the root and y just below it, x is y's only left descendant
+		if (left[y] >= 0) {
+			push(left[y]);
+		}
+		if (left[y] != x || left[x] >= 0 || right[x] >= 0) {
+			throw new IllegalArgumentException("nodes " + x + " and " + y + " are not adjacent");
+		}
+		left[y] = -1;
+		parent[x] = -1;
+		update(y);
+	}
+
+	/**
+	 * Finds the node of largest value on the tree path between two connected nodes.
+	 *
+	 * @param x First node
+	 * @param y Second node
+	 * @return Node of largest value on the path, ends included
+	 */
+	public int pathMax(int x, int y) {
+		makeRoot(x);
+		access(y);
+		return max[y];
+	}
+
+	/**
+	 * Makes sure there are at least some number of label layers.
+	 *
+	 * @param layers Number of layers, at most 63
+	 */
+	public void ensureLayers(int layers) {
+		if (layers > 63) {
+			throw new IllegalArgumentException("at most 63 label layers, not " + layers);
+		}
+		int old = label.length;
+		if (layers > old) {
+			label = Arrays.copyOf(label, layers);
+			for (int j=old; j < layers; j++) {
+				label[j] = new long[left.length];
+			}
+		}
+	}
+
+	/**
+	 * Labels every node on the tree path between two connected nodes in one
+	 * layer, making the label their mark too.
+	 *
+	 * @param x First node
+	 * @param y Second node
+	 * @param layer Layer, below {@link #ensureLayers(int)}
+	 * @param v Label, positive
+	 */
+	public void labelPath(int x, int y, int layer, long v) {
+		makeRoot(x);
+		access(y);
+		label[layer][y] = v;
+		mark[y] = maxMark[y] = v;
+		pending[y] |= MARK | (1L << layer);
+	}
+
+	/**
+	 * Returns the label of a node in one layer.
+	 *
+	 * @param x Node
+	 * @param layer Layer
+	 * @return Label, or 0 if the node has none
+	 */
+	public long getLabel(int x, int layer) {
+		if (layer >= label.length) {
+			return 0;
+		}
+		access(x);
+		return label[layer][x];
+	}
+
+	/**
+	 * Removes the labels and mark of a node that has no tree edges.
+	 *
+	 * @param x Node
+	 */
+	public void clearLabels(int x) {
+		access(x);
+		for (int j=0; j < label.length; j++) {
+			label[j][x] = 0;
+		}
+		mark[x] = 0;
+		pending[x] = 0;
+		update(x);
+	}
+
+	/**
+	 * Finds the node farthest from x on the tree path from x to y whose mark
+	 * is at least some value.
+	 *
+	 * @param x First node
+	 * @param y Second node, connected to x
+	 * @param least Least mark
+	 * @return Node found, or -1 if no node on the path has such a mark
+	 */
+	public int lastLabeled(int x, int y, long least) {
+		makeRoot(x);
+		access(y);
+		if (maxMark[y] < least) {
+			return -1;
+		}
+		int z = y;
+		while (true) {
+			push(z);
+			if (right[z] >= 0 && maxMark[right[z]] >= least) {
+				z = right[z];
+			} else if (mark[z] >= least) {
+				break;
+			} else {
+				z = left[z];
+			}
+		}
+		splay(z);
+		return z;
+	}
+}
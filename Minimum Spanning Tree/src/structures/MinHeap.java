@@ -7,7 +7,7 @@ import java.util.NoSuchElementException;
 /**
  * Implements a MIN-heap data structure.
  */
-public class MinHeap<T extends Comparable<T>> implements Iterable<T> {
+public class MinHeap<T extends Comparable<T>> implements MinQueue<T> {
     
 	private ArrayList<T> items;
 	
@@ -128,6 +128,25 @@ public class MinHeap<T extends Comparable<T>> implements Iterable<T> {
     		siftDown(k);
     	}
     }
+
+    /**
+     * Merges another queue into this one, by copying its items and rebuilding
+     * this heap bottom-up.
+     * 
+     * @param other Queue whose items will be merged into this heap.
+     */
+    public void merge(MinQueue<T> other) {
+    	if (other instanceof MinHeap) {
+    		merge((MinHeap<T>)other);
+    		return;
+    	}
+    	for (T item : other) {
+    		items.add(item);
+    	}
+    	for (int k=items.size()/2-1; k >= 0; k--) {
+    		siftDown(k);
+    	}
+    }
 	    
     
     /**
@@ -167,10 +186,10 @@ public class MinHeap<T extends Comparable<T>> implements Iterable<T> {
     }
     
     public String toString() {
-    	String ret = "";
+    	StringBuilder ret = new StringBuilder();
     	for (T item: items) {
-    		ret += "  " + item;
+    		ret.append("  ").append(item);
     	}
-    	return ret;
+    	return ret.toString();
     }
 }
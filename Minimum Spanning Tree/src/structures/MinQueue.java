@@ -0,0 +1,55 @@
+package structures;
+
+import java.util.NoSuchElementException;
+
+/**
+ * A min-priority queue that can absorb the items of another queue.
+ */
+public interface MinQueue<T extends Comparable<T>> extends Iterable<T> {
+
+	/**
+	 * Inserts an item into the queue.
+	 * 
+	 * @param item Item to insert.
+	 */
+	void insert(T item);
+
+	/**
+	 * Removes and returns the min item in the queue.
+	 * 
+	 * @return Min item.
+	 * @throws NoSuchElementException If the queue is empty.
+	 */
+	T deleteMin() throws NoSuchElementException;
+
+	/**
+	 * Returns (but does not remove) the min item in the queue.
+	 * 
+	 * @return Min item.
+	 * @throws NoSuchElementException If the queue is empty.
+	 */
+	T getMin() throws NoSuchElementException;
+
+	/**
+	 * Merges another queue into this one (i.e., all items in the other queue
+	 * are added to this one). The other queue must not be used afterwards, since
+	 * an implementation may take over its storage.
+	 * 
+	 * @param other Queue whose items will be merged into this queue.
+	 */
+	void merge(MinQueue<T> other);
+
+	/**
+	 * Returns the number of items currently in the queue.
+	 * 
+	 * @return Size of queue.
+	 */
+	int size();
+
+	/**
+	 * Tells if the queue is empty.
+	 * 
+	 * @return <tt>true</tt> if no items are in queue, <tt>false</tt> otherwise.
+	 */
+	boolean isEmpty();
+}
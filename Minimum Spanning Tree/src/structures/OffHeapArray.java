@@ -0,0 +1,134 @@
+package structures;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * A fixed-size array of ints or longs held outside the Java heap, indexed by
+ * long so that it can grow past the 2^31 element limit of Java arrays. The
+ * memory is split into direct or memory-mapped byte buffers of
+ * {@link #SEGMENT_BYTES} each; since a segment size is a multiple of 8, no
+ * element straddles two segments. The garbage collector sees only the few
+ * buffer objects, never the contents, however large the array.
+ */
+public class OffHeapArray {
+
+	/**
+	 * log2 of the bytes in one segment
+	 */
+	static final int SEGMENT_SHIFT = 30;
+
+	/**
+	 * Bytes in one segment
+	 */
+	public static final long SEGMENT_BYTES = 1L << SEGMENT_SHIFT;
+
+	private static final long SEGMENT_MASK = SEGMENT_BYTES - 1;
+
+	private ByteBuffer[] segments;
+
+	private long bytes;
+
+	private OffHeapArray(ByteBuffer[] segments, long bytes) {
+		this.segments = segments;
+		this.bytes = bytes;
+	}
+
+	/**
+	 * Allocates zeroed native memory.
+	 * 
+	 * @param bytes Size in bytes
+	 * @return Array
+	 */
+	public static OffHeapArray allocate(long bytes) {
+		ByteBuffer[] segments = new ByteBuffer[segmentCount(bytes)];
+		for (int s=0; s < segments.length; s++) {
+			segments[s] = ByteBuffer.allocateDirect((int)Math.min(SEGMENT_BYTES, bytes - s*SEGMENT_BYTES));
+		}
+		return new OffHeapArray(segments, bytes);
+	}
+
+	/**
+	 * Maps a region of a file into memory. Changes to a read-write mapping are
+	 * written back to the file by the operating system, which pages the array in
+	 * and out as needed, so the array may be larger than physical memory.
+	 * 
+	 * @param channel File channel, open for reading and also writing if mode is READ_WRITE
+	 * @param position Offset of the region in the file
+	 * @param bytes Size of the region in bytes
+	 * @param mode Mapping mode
+	 * @return Array
+	 * @throws IOException If the region cannot be mapped
+	 */
+	public static OffHeapArray map(FileChannel channel, long position, long bytes, FileChannel.MapMode mode)
+	throws IOException {
+		ByteBuffer[] segments = new ByteBuffer[segmentCount(bytes)];
+		for (int s=0; s < segments.length; s++) {
+			long start = s*SEGMENT_BYTES;
+			segments[s] = channel.map(mode, position + start, Math.min(SEGMENT_BYTES, bytes - start));
+		}
+		return new OffHeapArray(segments, bytes);
+	}
+
+	private static int segmentCount(long bytes) {
+		long count = (bytes + SEGMENT_BYTES - 1) >>> SEGMENT_SHIFT;
+		if (count > Integer.MAX_VALUE) {
+			throw new IllegalArgumentException(bytes + " bytes is too large");
+		}
+		return (int)count;
+	}
+
+	/**
+	 * Returns the size of the array in bytes.
+	 * 
+	 * @return Size in bytes
+	 */
+	public long byteSize() {
+		return bytes;
+	}
+
+	/**
+	 * Reads the int at an int index.
+	 * 
+	 * @param i Index, in ints
+	 * @return Value
+	 */
+	public int getInt(long i) {
+		long b = i << 2;
+		return segments[(int)(b >>> SEGMENT_SHIFT)].getInt((int)(b & SEGMENT_MASK));
+	}
+
+	/**
+	 * Writes the int at an int index.
+	 * 
+	 * @param i Index, in ints
+	 * @param value Value
+	 */
+	public void putInt(long i, int value) {
+		long b = i << 2;
+		segments[(int)(b >>> SEGMENT_SHIFT)].putInt((int)(b & SEGMENT_MASK), value);
+	}
+
+	/**
+	 * Reads the long at a long index.
+	 * 
+	 * @param i Index, in longs
+	 * @return Value
+	 */
+	public long getLong(long i) {
+		long b = i << 3;
+		return segments[(int)(b >>> SEGMENT_SHIFT)].getLong((int)(b & SEGMENT_MASK));
+	}
+
+	/**
+	 * Writes the long at a long index.
+	 * 
+	 * @param i Index, in longs
+	 * @param value Value
+	 */
+	public void putLong(long i, long value) {
+		long b = i << 3;
+		segments[(int)(b >>> SEGMENT_SHIFT)].putLong((int)(b & SEGMENT_MASK), value);
+	}
+}
@@ -0,0 +1,238 @@
+package structures;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Adjacency of a weighted, undirected graph in compressed sparse row form, like
+ * {@link CsrGraph}, but with the offsets, targets and weights held off the Java
+ * heap in {@link OffHeapArray}s and indexed by long. The number of entries -
+ * twice the number of edges - may go past 2^31, and the garbage collector never
+ * scans the edge data, so its pauses do not grow with the graph.
+ * 
+ * The arrays live either in native memory or in a scratch file mapped into
+ * memory, which lets the operating system page a graph larger than physical
+ * memory. Only the vertex names are kept on the heap.
+ */
+public class OffHeapGraph implements Closeable {
+
+	String[] names;
+
+	/**
+	 * Start of each vertex's row, as n+1 longs
+	 */
+	private OffHeapArray offsets;
+
+	/**
+	 * Neighbor vertex number of each entry, as ints
+	 */
+	private OffHeapArray targets;
+
+	/**
+	 * Edge weight of each entry, as ints
+	 */
+	private OffHeapArray weights;
+
+	/**
+	 * Scratch file backing the arrays, or null for native memory
+	 */
+	private RandomAccessFile scratch;
+
+	private File scratchFile;
+
+	private OffHeapGraph() {
+	}
+
+	/**
+	 * Builds the graph in a binary graph file (see {@link GraphIO}) in native memory.
+	 * 
+	 * @param graphFile Name of binary graph file
+	 * @return Graph
+	 * @throws IOException If the file cannot be read or is malformed
+	 */
+	public static OffHeapGraph build(String graphFile)
+	throws IOException {
+		return build(graphFile, null);
+	}
+
+	/**
+	 * Builds the graph in a binary graph file (see {@link GraphIO}) in a scratch
+	 * file mapped into memory. The scratch file is deleted on {@link #close()}.
+	 * 
+	 * @param graphFile Name of binary graph file
+	 * @param scratchFile Scratch file, or null to use native memory
+	 * @return Graph
+	 * @throws IOException If a file cannot be read or written, or the graph file is malformed
+	 */
+	public static OffHeapGraph build(String graphFile, File scratchFile)
+	throws IOException {
+		BinaryGraphFile in = new BinaryGraphFile(graphFile);
+		OffHeapGraph graph = new OffHeapGraph();
+		try {
+			graph.names = in.names;
+			int n = in.names.length;
+			long entries = 2 * in.edgeCount;
+			graph.allocate(n, entries, scratchFile);
+
+			// count degrees, then turn them into row starts
+			OffHeapArray offsets = graph.offsets;
+			int[] chunk = new int[3*4096];
+			for (long done=0; done < in.edgeCount; ) {
+				IntBuffer ib = in.mapEdges(done);
+				while (ib.hasRemaining()) {
+					int len = Math.min(chunk.length, ib.remaining());
+					ib.get(chunk, 0, len);
+					for (int i=0; i < len; i+=3) {
+						in.checkVertex(chunk[i]);
+						in.checkVertex(chunk[i+1]);
+						offsets.putLong(chunk[i]+1, offsets.getLong(chunk[i]+1) + 1);
+						offsets.putLong(chunk[i+1]+1, offsets.getLong(chunk[i+1]+1) + 1);
+					}
+					done += len / 3;
+				}
+			}
+			OffHeapArray next = OffHeapArray.allocate(8L * Math.max(n, 1));
+			for (int v=0; v < n; v++) {
+				offsets.putLong(v+1, offsets.getLong(v+1) + offsets.getLong(v));
+				next.putLong(v, offsets.getLong(v));
+			}
+
+			OffHeapArray targets = graph.targets, weights = graph.weights;
+			for (long done=0; done < in.edgeCount; ) {
+				IntBuffer ib = in.mapEdges(done);
+				while (ib.hasRemaining()) {
+					int len = Math.min(chunk.length, ib.remaining());
+					ib.get(chunk, 0, len);
+					for (int i=0; i < len; i+=3) {
+						int u = chunk[i], v = chunk[i+1], w = chunk[i+2];
+						long iu = next.getLong(u), iv;
+						next.putLong(u, iu + 1);
+						targets.putInt(iu, v);
+						weights.putInt(iu, w);
+						iv = next.getLong(v);
+						next.putLong(v, iv + 1);
+						targets.putInt(iv, u);
+						weights.putInt(iv, w);
+					}
+					done += len / 3;
+				}
+			}
+			return graph;
+		} catch (IOException e) {
+			graph.close();
+			throw e;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Allocates the three arrays, in native memory or laid end to end in a scratch file.
+	 */
+	private void allocate(int n, long entries, File file)
+	throws IOException {
+		long offsetBytes = 8L * (n + 1), entryBytes = 4 * entries;
+		if (file == null) {
+			offsets = OffHeapArray.allocate(offsetBytes);
+			targets = OffHeapArray.allocate(entryBytes);
+			weights = OffHeapArray.allocate(entryBytes);
+			return;
+		}
+		scratchFile = file;
+		scratch = new RandomAccessFile(file, "rw");
+		// a new file reads as zeros, which the degree count relies on
+		scratch.setLength(0);
+		scratch.setLength(offsetBytes + 2*entryBytes);
+		FileChannel channel = scratch.getChannel();
+		offsets = OffHeapArray.map(channel, 0, offsetBytes, FileChannel.MapMode.READ_WRITE);
+		targets = OffHeapArray.map(channel, offsetBytes, entryBytes, FileChannel.MapMode.READ_WRITE);
+		weights = OffHeapArray.map(channel, offsetBytes + entryBytes, entryBytes, FileChannel.MapMode.READ_WRITE);
+	}
+
+	/**
+	 * Returns the vertex names, in vertex number order.
+	 * 
+	 * @return Vertex names
+	 */
+	public String[] getNames() {
+		return names;
+	}
+
+	/**
+	 * Returns the number of vertices.
+	 *
+	 * @return Number of vertices
+	 */
+	public int vertexCount() {
+		return names.length;
+	}
+
+	/**
+	 * Returns the number of entries over all rows, which is twice the number of edges.
+	 *
+	 * @return Number of entries
+	 */
+	public long entryCount() {
+		return offsets.getLong(names.length);
+	}
+
+	/**
+	 * Returns the index of the first entry in a vertex's row.
+	 *
+	 * @param v Vertex number
+	 * @return First entry index
+	 */
+	public long start(int v) {
+		return offsets.getLong(v);
+	}
+
+	/**
+	 * Returns the index one past the last entry in a vertex's row.
+	 *
+	 * @param v Vertex number
+	 * @return End entry index
+	 */
+	public long end(int v) {
+		return offsets.getLong(v+1);
+	}
+
+	/**
+	 * Returns the neighbor vertex number of an entry.
+	 *
+	 * @param i Entry index
+	 * @return Neighbor vertex number
+	 */
+	public int target(long i) {
+		return targets.getInt(i);
+	}
+
+	/**
+	 * Returns the edge weight of an entry.
+	 *
+	 * @param i Entry index
+	 * @return Edge weight
+	 */
+	public int weight(long i) {
+		return weights.getInt(i);
+	}
+
+	/**
+	 * Drops the arrays and deletes the scratch file, if any. Native memory is
+	 * given back once the garbage collector finds the buffers unreachable.
+	 */
+	public void close()
+	throws IOException {
+		offsets = targets = weights = null;
+		if (scratch != null) {
+			scratch.close();
+			scratch = null;
+			if (!scratchFile.delete()) {
+				scratchFile.deleteOnExit();
+			}
+		}
+	}
+}
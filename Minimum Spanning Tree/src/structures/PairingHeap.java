@@ -0,0 +1,182 @@
+package structures;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implements a MIN pairing heap: a heap-ordered multiway tree in which merge and
+ * insert take O(1) time, and deleteMin takes O(log n) amortized time using
+ * two-pass pairing of the root's children.
+ */
+public class PairingHeap<T extends Comparable<T>> implements MinQueue<T> {
+
+	/**
+	 * Node of the heap tree, in first child - next sibling form
+	 */
+	private static class Node<T> {
+		T item;
+		Node<T> child;
+		Node<T> sibling;
+
+		Node(T item) {
+			this.item = item;
+		}
+	}
+
+	/**
+	 * Root of the heap, holds the min item
+	 */
+	private Node<T> root;
+
+	/**
+	 * Number of items in the heap
+	 */
+	private int size;
+
+	/**
+	 * Constructs a new, empty heap.
+	 */
+	public PairingHeap() {
+		root = null;
+		size = 0;
+	}
+
+	/**
+	 * Makes the root with the larger item the first child of the other root.
+	 * 
+	 * @return Root of the linked tree
+	 */
+	private Node<T> link(Node<T> a, Node<T> b) {
+		if (b.item.compareTo(a.item) < 0) {
+			Node<T> t = a; a = b; b = t;
+		}
+		b.sibling = a.child;
+		a.child = b;
+		return a;
+	}
+
+	public void insert(T item) {
+		Node<T> node = new Node<T>(item);
+		root = root == null ? node : link(root, node);
+		size++;
+	}
+
+	public T deleteMin()
+	throws NoSuchElementException {
+		if (root == null) {
+			throw new NoSuchElementException();
+		}
+		T minItem = root.item;
+
+		// first pass: link the children in pairs, left to right, collecting the
+		// results in a list that runs right to left
+		Node<T> pairs = null;
+		Node<T> ptr = root.child;
+		while (ptr != null) {
+			Node<T> a = ptr, b = ptr.sibling;
+			if (b == null) {
+				a.sibling = pairs;
+				pairs = a;
+				break;
+			}
+			ptr = b.sibling;
+			a.sibling = b.sibling = null;
+			Node<T> linked = link(a, b);
+			linked.sibling = pairs;
+			pairs = linked;
+		}
+
+		// second pass: link the pairs into one tree, right to left
+		Node<T> newRoot = null;
+		while (pairs != null) {
+			Node<T> next = pairs.sibling;
+			pairs.sibling = null;
+			newRoot = newRoot == null ? pairs : link(newRoot, pairs);
+			pairs = next;
+		}
+		root = newRoot;
+		size--;
+		return minItem;
+	}
+
+	public T getMin()
+	throws NoSuchElementException {
+		if (root == null) {
+			throw new NoSuchElementException();
+		}
+		return root.item;
+	}
+
+	/**
+	 * Merges another queue into this one. A pairing heap is melded in O(1) time
+	 * and left empty; any other queue has its items inserted one at a time.
+	 * 
+	 * @param other Queue whose items will be merged into this queue.
+	 */
+	public void merge(MinQueue<T> other) {
+		if (other instanceof PairingHeap) {
+			PairingHeap<T> hp = (PairingHeap<T>)other;
+			if (hp.root != null) {
+				root = root == null ? hp.root : link(root, hp.root);
+				size += hp.size;
+				hp.root = null;
+				hp.size = 0;
+			}
+			return;
+		}
+		for (T item : other) {
+			insert(item);
+		}
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public boolean isEmpty() {
+		return root == null;
+	}
+
+	/**
+	 * Returns an iterator over the items, in no particular order.
+	 * The iterator does NOT support remove.
+	 */
+	public Iterator<T> iterator() {
+		final ArrayList<Node<T>> stack = new ArrayList<Node<T>>();
+		if (root != null) {
+			stack.add(root);
+		}
+		return new Iterator<T>() {
+			public boolean hasNext() {
+				return !stack.isEmpty();
+			}
+
+			public T next() {
+				if (stack.isEmpty()) {
+					throw new NoSuchElementException();
+				}
+				Node<T> node = stack.remove(stack.size()-1);
+				if (node.sibling != null) {
+					stack.add(node.sibling);
+				}
+				if (node.child != null) {
+					stack.add(node.child);
+				}
+				return node.item;
+			}
+
+			public void remove() {
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	public String toString() {
+		StringBuilder ret = new StringBuilder();
+		for (T item : this) {
+			ret.append("  ").append(item);
+		}
+		return ret.toString();
+	}
+}
@@ -10,7 +10,7 @@ public class PartialTree {
 	/**
 	 * The arcs included in this partial tree
 	 */
-	private MinHeap<Arc> arcs;
+	private MinQueue<Arc> arcs;
 
 	/**
 	 * Initializes this partial tree with given vertex
@@ -18,8 +18,19 @@ public class PartialTree {
 	 * @param vertex Vertex used to initialize the tree
 	 */
     public PartialTree(Vertex vertex) {
+    	this(vertex, new MinHeap<Arc>());
+    }
+
+	/**
+	 * Initializes this partial tree with given vertex, keeping its arcs in
+	 * the given (empty) priority queue
+	 * 
+	 * @param vertex Vertex used to initialize the tree
+	 * @param arcs Priority queue for the arcs of the tree
+	 */
+    public PartialTree(Vertex vertex, MinQueue<Arc> arcs) {
     	root = vertex;
-    	arcs = new MinHeap<Arc>();
+    	this.arcs = arcs;
     }
 
     /**
@@ -47,7 +58,7 @@ public class PartialTree {
      * 
      * @return Priority-ordered arc set.
      */
-    public MinHeap<Arc> getArcs() {
+    public MinQueue<Arc> getArcs() {
     	return arcs;
     }
     
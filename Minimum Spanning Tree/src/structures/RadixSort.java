@@ -0,0 +1,168 @@
+package structures;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Least-significant-digit radix sort of long keys, one byte per pass, in
+ * linear time. Keys are ordered as signed longs, like {@link java.util.Arrays#sort(long[])}.
+ * Passes in which every key has the same digit are skipped.
+ * 
+ * For packed (weight, edge) keys made by {@link EdgeList#key(int, int)} that
+ * are already in edge number order - as they are when built straight from an
+ * edge list - only the four weight bytes need sorting, since each pass is stable.
+ */
+public class RadixSort {
+
+	/**
+	 * Arrays shorter than this are left to a comparison sort
+	 */
+	private static final int SMALL = 64;
+
+	/**
+	 * Keys handled by one task of a parallel pass
+	 */
+	private static final int GRAIN = 1 << 16;
+
+	/**
+	 * Sorts keys.
+	 * 
+	 * @param keys Keys to sort
+	 */
+	public static void sort(long[] keys) {
+		sort(keys, 0);
+	}
+
+	/**
+	 * Sorts packed (weight, edge) keys that are already ordered by edge number,
+	 * looking only at the weight bytes.
+	 * 
+	 * @param keys Keys in edge number order
+	 */
+	public static void sortByWeight(long[] keys) {
+		sort(keys, 4);
+	}
+
+	private static void sort(long[] keys, int firstByte) {
+		int n = keys.length;
+		if (n < SMALL) {
+			java.util.Arrays.sort(keys);
+			return;
+		}
+		// one read pass counts the digits of every pass
+		int[][] counts = new int[8][256];
+		for (long k : keys) {
+			for (int b=firstByte; b < 8; b++) {
+				counts[b][digit(k, b)]++;
+			}
+		}
+		long[] src = keys, dst = new long[n];
+		for (int b=firstByte; b < 8; b++) {
+			int[] count = counts[b];
+			if (count[digit(src[0], b)] == n) {
+				continue;
+			}
+			for (int d=0, sum=0; d < 256; d++) {
+				int c = count[d];
+				count[d] = sum;
+				sum += c;
+			}
+			for (long k : src) {
+				dst[count[digit(k, b)]++] = k;
+			}
+			long[] t = src; src = dst; dst = t;
+		}
+		if (src != keys) {
+			System.arraycopy(src, 0, keys, 0, n);
+		}
+	}
+
+	/**
+	 * Sorts packed (weight, edge) keys that are already ordered by edge number,
+	 * looking only at the weight bytes, on a fork-join pool. In each pass, chunks
+	 * of the array count their digits in parallel, the counts are turned into an
+	 * output position for every (digit, chunk) pair, and the chunks then scatter
+	 * their keys in parallel; taking chunks in order within each digit keeps the
+	 * pass stable.
+	 * 
+	 * @param keys Keys in edge number order
+	 * @param pool Fork-join pool
+	 */
+	public static void parallelSortByWeight(long[] keys, ForkJoinPool pool) {
+		int n = keys.length;
+		if (n < 2*GRAIN) {
+			sortByWeight(keys);
+			return;
+		}
+		int chunks = (n + GRAIN - 1) / GRAIN;
+		int[][] counts = new int[chunks][256];
+		long[] src = keys, dst = new long[n];
+		for (int b=4; b < 8; b++) {
+			for (int[] count : counts) {
+				java.util.Arrays.fill(count, 0);
+			}
+			pool.invoke(new PassTask(src, dst, counts, b, 0, chunks, false));
+			int pos = 0;
+			boolean trivial = false;
+			for (int d=0; d < 256; d++) {
+				int before = pos;
+				for (int c=0; c < chunks; c++) {
+					int t = counts[c][d];
+					counts[c][d] = pos;
+					pos += t;
+				}
+				trivial |= pos - before == n;
+			}
+			if (trivial) {
+				continue;
+			}
+			pool.invoke(new PassTask(src, dst, counts, b, 0, chunks, true));
+			long[] t = src; src = dst; dst = t;
+		}
+		if (src != keys) {
+			System.arraycopy(src, 0, keys, 0, n);
+		}
+	}
+
+	/**
+	 * Returns byte b of a key, with the sign bit flipped in the top byte so that
+	 * negative keys come first.
+	 */
+	private static int digit(long k, int b) {
+		int d = (int)(k >>> (8*b)) & 0xFF;
+		return b == 7 ? d ^ 0x80 : d;
+	}
+
+	private static class PassTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private long[] src, dst;
+		private int[][] counts;
+		private int b, from, to;
+		private boolean scatter;
+
+		PassTask(long[] src, long[] dst, int[][] counts, int b, int from, int to, boolean scatter) {
+			this.src = src; this.dst = dst; this.counts = counts;
+			this.b = b; this.from = from; this.to = to; this.scatter = scatter;
+		}
+
+		protected void compute() {
+			if (to - from > 1) {
+				int mid = (from + to) >>> 1;
+				invokeAll(new PassTask(src, dst, counts, b, from, mid, scatter),
+						new PassTask(src, dst, counts, b, mid, to, scatter));
+				return;
+			}
+			int[] count = counts[from];
+			int start = from * GRAIN, end = Math.min(start + GRAIN, src.length);
+			if (scatter) {
+				for (int i=start; i < end; i++) {
+					dst[count[digit(src[i], b)]++] = src[i];
+				}
+			} else {
+				for (int i=start; i < end; i++) {
+					count[digit(src[i], b)]++;
+				}
+			}
+		}
+	}
+}
@@ -0,0 +1,99 @@
+package structures;
+
+/**
+ * Disjoint sets over the integers 0..n-1, with union by rank and path halving.
+ */
+public class UnionFind {
+
+	/**
+	 * Parent of each element; a root is its own parent.
+	 */
+	private int[] parent;
+
+	/**
+	 * Upper bound on the height of the tree under each root.
+	 */
+	private byte[] rank;
+
+	/**
+	 * Number of disjoint sets.
+	 */
+	private int count;
+
+	/**
+	 * Initializes n singleton sets.
+	 *
+	 * @param n Number of elements
+	 */
+	public UnionFind(int n) {
+		parent = new int[n];
+		rank = new byte[n];
+		for (int i=0; i < n; i++) {
+			parent[i] = i;
+		}
+		count = n;
+	}
+
+	/**
+	 * Finds the representative of the set containing an element.
+	 *
+	 * @param x Element
+	 * @return Representative of the set containing x
+	 */
+	public int find(int x) {
+		while (parent[x] != x) {
+			parent[x] = parent[parent[x]];
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Finds the representative of the set containing an element without
+	 * shortening the path to it, so that it only reads the sets and may run on
+	 * several threads at once while no union is under way. Union by rank keeps
+	 * the path at most log n long.
+	 *
+	 * @param x Element
+	 * @return Representative of the set containing x
+	 */
+	public int root(int x) {
+		while (parent[x] != x) {
+			x = parent[x];
+		}
+		return x;
+	}
+
+	/**
+	 * Merges the sets containing two elements.
+	 *
+	 * @param x First element
+	 * @param y Second element
+	 * @return True if the sets were merged, false if x and y were already in the same set
+	 */
+	public boolean union(int x, int y) {
+		int rx = find(x), ry = find(y);
+		if (rx == ry) {
+			return false;
+		}
+		if (rank[rx] < rank[ry]) {
+			parent[rx] = ry;
+		} else if (rank[rx] > rank[ry]) {
+			parent[ry] = rx;
+		} else {
+			parent[ry] = rx;
+			rank[rx]++;
+		}
+		count--;
+		return true;
+	}
+
+	/**
+	 * Returns the number of disjoint sets.
+	 *
+	 * @return Number of sets
+	 */
+	public int count() {
+		return count;
+	}
+}
@@ -1,7 +1,7 @@
 package structures;
 
 /**
- * Adjacency linked lists representation of a vertex in a graph.  Also maintains a
+ * A vertex in a graph, with an optional adjacency linked list.  Also maintains a
  * reference to a "parent" vertex, to allow the MST application to keep track of
  * partial trees within the graph.
  */
@@ -45,10 +45,17 @@ public class Vertex {
     public String name;
 
     /**
-     * Adjacency linked list of all neighbors.
+     * Adjacency linked list of all neighbors. For a vertex of a graph read
+     * from a file it is null until built from the graph's CSR adjacency by
+     * the first call to {@link #getNeighbors()}, which should be used to read it.
      */
     public Neighbor neighbors;
 
+    /**
+     * Graph that holds this vertex
+     */
+    Graph graph;
+
     /**
      * Reference to the immediate parent of this vertex in the partial spanning
      * tree to which the vertex belongs.  Note that a vertex and its parent
@@ -59,6 +66,11 @@ public class Vertex {
      */
     public Vertex parent;
 
+    /**
+     * Index of this vertex in the vertices array of the graph that contains it.
+     */
+    public int id;
+
     /**
      * Constructs a new Vertex object with no neighbors (i.e.,
      * no outgoing edges), and no parent vertex (i.e., it is its own partial
@@ -71,6 +83,26 @@ public class Vertex {
     	parent = this;
     }
 
+    /**
+     * Returns the adjacency linked list of all neighbors, with the most recently
+     * read edge first, as the list was built when edges were added one by one.
+     * The list is built on the first call, so graphs whose adjacency is only
+     * read through {@link Graph#getAdjacency()} never pay for it.
+     * 
+     * @return First neighbor, or null if there are none
+     */
+    public Neighbor getNeighbors() {
+    	if (neighbors == null && graph != null) {
+    		CsrGraph adjacency = graph.adjacency;
+    		for (int i=adjacency.start(id); i < adjacency.end(id); i++) {
+    			Neighbor nbr = new Neighbor(graph.vertices[adjacency.target(i)], adjacency.weight(i));
+    			nbr.next = neighbors;
+    			neighbors = nbr;
+    		}
+    	}
+    	return neighbors;
+    }
+
     /**
      * Finds and returns the vertex at the root of the partial spanning tree to
      * which this vertex belongs.